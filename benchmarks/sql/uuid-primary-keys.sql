@@ -0,0 +1,110 @@
+-- ===========================================
+-- Benchmark: VARCHAR(36) random UUID keys vs BINARY(16) UUIDv7 keys
+-- Description: Compares the users table layout before and after V2__binary_uuid_keys.sql at 1M+ rows.
+--              Measures bulk insert time, point lookups by primary key and by email, and table/index size.
+--
+-- Usage (MySQL 8 or MariaDB 10.11, on a scratch schema, never on the application database):
+--   mysql -u root -p -e "CREATE DATABASE uuid_bench"
+--   mysql -u root -p uuid_bench < benchmarks/sql/uuid-primary-keys.sql
+-- Each SELECT ... AS result row prints the measured value.
+-- ===========================================
+
+SET @rows = 1000000; -- Up to 10M
+
+DROP TABLE IF EXISTS bench_digits;
+DROP TABLE IF EXISTS bench_seq;
+DROP TABLE IF EXISTS users_varchar;
+DROP TABLE IF EXISTS users_binary;
+
+-- Row numbers, generated once and shared by both runs. A cross join of digits instead of a recursive CTE, whose
+-- depth limit is set differently in MySQL and MariaDB.
+CREATE TABLE bench_digits (d INT PRIMARY KEY) ENGINE=InnoDB;
+INSERT INTO bench_digits (d) VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+CREATE TABLE bench_seq (n INT PRIMARY KEY) ENGINE=InnoDB;
+INSERT INTO bench_seq (n)
+SELECT n FROM (
+    SELECT 1 + d1.d + d2.d * 10 + d3.d * 100 + d4.d * 1000 + d5.d * 10000 + d6.d * 100000 + d7.d * 1000000 AS n
+    FROM bench_digits d1, bench_digits d2, bench_digits d3, bench_digits d4, bench_digits d5, bench_digits d6, bench_digits d7
+) AS seq
+WHERE n <= @rows;
+
+-- Before: random (version 4 style) UUIDs as text, plus the redundant email index
+CREATE TABLE users_varchar (
+    id VARCHAR(36) PRIMARY KEY,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    enabled BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+CREATE INDEX idx_users_varchar_email ON users_varchar(email);
+
+-- After: time-ordered UUIDv7 as 16 bytes, email only indexed by its UNIQUE constraint
+CREATE TABLE users_binary (
+    id BINARY(16) PRIMARY KEY,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    enabled BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 1. Inserts (one INSERT ... SELECT per layout, same rows and same order of generation)
+SET @start = NOW(6);
+INSERT INTO users_varchar (id, email, password)
+SELECT LOWER(CONCAT_WS('-', SUBSTR(h, 1, 8), SUBSTR(h, 9, 4), CONCAT('4', SUBSTR(h, 14, 3)), CONCAT('8', SUBSTR(h, 18, 3)), SUBSTR(h, 21, 12))),
+       CONCAT('student', n, '@alumnos.udg.mx'),
+       '$2a$10$abcdefghijklmnopqrstuuKkq1x2V8cQZr7C0b3mJqkq2tVQz7FGa'
+FROM (SELECT n, MD5(CONCAT(n, RAND())) AS h FROM bench_seq) AS src;
+SELECT 'insert varchar(36) v4' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+SET @start = NOW(6);
+SET @epoch_ms = FLOOR(UNIX_TIMESTAMP(NOW(3)) * 1000);
+INSERT INTO users_binary (id, email, password)
+SELECT UNHEX(CONCAT(LPAD(HEX(@epoch_ms + n), 12, '0'), '7', SUBSTR(h, 1, 3), '8', SUBSTR(h, 5, 15))),
+       CONCAT('student', n, '@alumnos.udg.mx'),
+       '$2a$10$abcdefghijklmnopqrstuuKkq1x2V8cQZr7C0b3mJqkq2tVQz7FGa'
+FROM (SELECT n, MD5(CONCAT(n, RAND())) AS h FROM bench_seq) AS src;
+SELECT 'insert binary(16) v7' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+ANALYZE TABLE users_varchar, users_binary;
+
+-- 2. Size on disk (clustered index = data, secondary indexes = index)
+SELECT table_name AS metric,
+       ROUND(data_length / 1024 / 1024, 1) AS data_mb,
+       ROUND(index_length / 1024 / 1024, 1) AS index_mb
+FROM information_schema.tables
+WHERE table_schema = DATABASE() AND table_name IN ('users_varchar', 'users_binary');
+
+-- 3. 100k primary key lookups in random order (what JwtFilter/loadUserById does)
+DROP TEMPORARY TABLE IF EXISTS sample_varchar;
+DROP TEMPORARY TABLE IF EXISTS sample_binary;
+CREATE TEMPORARY TABLE sample_varchar AS SELECT id FROM users_varchar ORDER BY RAND() LIMIT 100000;
+CREATE TEMPORARY TABLE sample_binary AS SELECT id FROM users_binary ORDER BY RAND() LIMIT 100000;
+
+SET @start = NOW(6);
+SELECT COUNT(u.enabled) INTO @ignored FROM sample_varchar s STRAIGHT_JOIN users_varchar u ON u.id = s.id;
+SELECT 'pk lookups varchar(36)' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+SET @start = NOW(6);
+SELECT COUNT(u.enabled) INTO @ignored FROM sample_binary s STRAIGHT_JOIN users_binary u ON u.id = s.id;
+SELECT 'pk lookups binary(16)' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+-- 4. 100k lookups by email (login path), with and without the redundant index
+SET @start = NOW(6);
+SELECT COUNT(u.enabled) INTO @ignored
+FROM (SELECT CONCAT('student', FLOOR(1 + RAND() * @rows), '@alumnos.udg.mx') AS email FROM bench_seq LIMIT 100000) s
+STRAIGHT_JOIN users_varchar u ON u.email = s.email;
+SELECT 'email lookups varchar(36)' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+SET @start = NOW(6);
+SELECT COUNT(u.enabled) INTO @ignored
+FROM (SELECT CONCAT('student', FLOOR(1 + RAND() * @rows), '@alumnos.udg.mx') AS email FROM bench_seq LIMIT 100000) s
+STRAIGHT_JOIN users_binary u ON u.email = s.email;
+SELECT 'email lookups binary(16)' AS metric, TIMESTAMPDIFF(MICROSECOND, @start, NOW(6)) / 1000 AS result_ms;
+
+DROP TABLE bench_digits;
+DROP TABLE bench_seq;
+DROP TABLE users_varchar;
+DROP TABLE users_binary;
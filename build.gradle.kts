@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.5.10"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "edu.teleinformatics"
@@ -10,7 +11,7 @@ description = "teleinformatics-core"
 
 java {
     toolchain {
-        languageVersion = JavaLanguageVersion.of(17)
+        languageVersion = JavaLanguageVersion.of(21)
     }
 }
 
@@ -24,21 +25,41 @@ repositories {
     mavenCentral()
 }
 
+// End-to-end load harness in src/loadTest/java, run with ./gradlew loadTest
+val loadTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.flywaydb:flyway-core")
     implementation("org.flywaydb:flyway-mysql")
     implementation("io.jsonwebtoken:jjwt-api:0.13.0")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("com.github.ben-manes.caffeine:jcache")
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("org.hibernate.orm:hibernate-micrometer")
     compileOnly("org.projectlombok:lombok")
     runtimeOnly("com.mysql:mysql-connector-j")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.13.0")
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.13.0")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.springframework.security:spring-security-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmh("org.mockito:mockito-core")
+    jmh("org.springframework:spring-test")
+    jmh("ch.vorburger.mariaDB4j:mariaDB4j:3.1.0")
+    "loadTestImplementation"("ch.vorburger.mariaDB4j:mariaDB4j:3.1.0")
+    "loadTestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.7.0")
@@ -47,3 +68,45 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Starts the application against an embedded MariaDB and drives register, login and authenticated workloads."
+    classpath = loadTest.runtimeClasspath
+    mainClass = "edu.teleinformatics.core.loadtest.LoadTestHarness"
+    systemProperties(providers.gradlePropertiesPrefixedBy("loadtest.").get()) // e.g. -Ploadtest.users=2000
+}
+
+val databaseBenchmarks = "AuthUserLookupBenchmark" // Regular expression over benchmark names, like jmhIncludes
+
+// Micro-benchmarks in src/jmh/java. Run with ./gradlew jmh, or a subset with ./gradlew jmh -PjmhIncludes=JwtServiceBenchmark
+jmh {
+    jmhVersion = "1.37"
+    includes = providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList())
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    excludes = listOf(databaseBenchmarks) // Run with jmhDatabase below
+    profilers = listOf("gc") // Adds gc.alloc.rate.norm (bytes allocated per operation) next to every score
+    resultFormat = "JSON"
+}
+
+// Benchmarks that boot the application on the load harness's embedded MariaDB. They can't run from the jmh jar, which
+// keeps a single copy of each Spring Boot META-INF resource, so JMH runs from the unmerged classpath, inherited by the
+// forks. Run with ./gradlew jmhDatabase
+sourceSets.named("jmh") {
+    compileClasspath += loadTest.output
+    runtimeClasspath += loadTest.output
+}
+
+tasks.register<JavaExec>("jmhDatabase") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks that need a database against an embedded MariaDB."
+    dependsOn("jmhCompileGeneratedClasses")
+    classpath = files(layout.buildDirectory.dir("jmh-generated-classes"), layout.buildDirectory.dir("jmh-generated-resources")) +
+            sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+    doFirst { layout.buildDirectory.dir("results/jmh").get().asFile.mkdirs() }
+    args(databaseBenchmarks, "-f", "1", "-wi", "3", "-i", "5", "-prof", "gc",
+            "-rf", "JSON", "-rff", layout.buildDirectory.file("results/jmh/database.json").get().asFile.path)
+}
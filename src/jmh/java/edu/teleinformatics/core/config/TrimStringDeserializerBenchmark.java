@@ -0,0 +1,51 @@
+package edu.teleinformatics.core.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.teleinformatics.core.auth.dto.CreateUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body binding with TrimStringDeserializer on the email field (CreateUser) against the same record bound by
+ * the default String deserializer, so the difference is the cost of trimming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrimStringDeserializerBenchmark {
+    private static final byte[] BODY = "{\"email\":\"  student@alumnos.udg.mx  \",\"password\":\"password123\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private ObjectReader trimmingReader;
+    private ObjectReader plainReader;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        trimmingReader = objectMapper.readerFor(CreateUser.class);
+        plainReader = objectMapper.readerFor(PlainUser.class);
+    }
+
+    @Benchmark
+    public CreateUser trimmed() throws IOException {
+        return trimmingReader.readValue(BODY);
+    }
+
+    @Benchmark
+    public PlainUser plain() throws IOException {
+        return plainReader.readValue(BODY);
+    }
+
+    public record PlainUser(String email, String password) {
+    }
+}
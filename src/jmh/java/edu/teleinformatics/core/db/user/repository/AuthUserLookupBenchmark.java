@@ -0,0 +1,125 @@
+package edu.teleinformatics.core.db.user.repository;
+
+import edu.teleinformatics.core.TeleinformaticsCoreApplication;
+import edu.teleinformatics.core.db.user.entity.Role;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.db.user.projection.AuthUser;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.loadtest.EmbeddedDatabase;
+import edu.teleinformatics.core.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Loading a principal the way CustomUserDetailsService does on a cache miss: through the AuthUser projection
+ * ({@code projection}) or through the User entity with its EAGER roles, as it did before ({@code entity}). Boots the
+ * application on the load harness's embedded MariaDB with {@code users} students, one in ten also a teacher, and looks
+ * them up in turn, so the figures include the round trip to a local database. Compare gc.alloc.rate.norm as well as the
+ * score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthUserLookupBenchmark {
+    private static final String PASSWORD_HASH = "$2a$10$abcdefghijklmnopqrstuuKkq1x2V8cQZr7C0b3mJqkq2tVQz7FGa";
+
+    @Param({"projection", "entity"})
+    private String path;
+
+    @Param({"10000"})
+    private int users;
+
+    private EmbeddedDatabase database;
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private boolean projection;
+    private UUID[] ids;
+    private String[] emails;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        database = EmbeddedDatabase.start();
+        context = new SpringApplicationBuilder(TeleinformaticsCoreApplication.class)
+                .profiles("loadtest")
+                .run(database.applicationArguments());
+        userRepository = context.getBean(UserRepository.class);
+        projection = path.equals("projection");
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Integer studentRoleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = ?", Integer.class, RoleEnum.ROLE_STUDENT.name());
+        Integer teacherRoleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = ?", Integer.class, RoleEnum.ROLE_TEACHER.name());
+
+        ids = new UUID[users];
+        emails = new String[users];
+        List<Object[]> userRows = new ArrayList<>(users);
+        List<Object[]> roleRows = new ArrayList<>(users + users / 10);
+        for (int i = 0; i < users; i++) {
+            ids[i] = UuidV7.generate();
+            emails[i] = "student" + i + "@alumnos.udg.mx";
+            byte[] id = UuidV7.toBytes(ids[i]);
+            userRows.add(new Object[]{id, emails[i], PASSWORD_HASH});
+            roleRows.add(new Object[]{id, studentRoleId});
+            if (i % 10 == 0) {
+                roleRows.add(new Object[]{id, teacherRoleId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password, enabled) VALUES (?, ?, ?, TRUE)", userRows);
+        jdbcTemplate.batchUpdate("INSERT INTO users_roles (user_id, role_id) VALUES (?, ?)", roleRows);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        database.close();
+    }
+
+    @Benchmark
+    public CustomUserDetails byId() {
+        UUID id = ids[nextIndex()];
+        return projection
+                ? fromAuthUser(userRepository.findAuthUserById(id).orElseThrow())
+                : fromEntity(userRepository.findById(id).orElseThrow());
+    }
+
+    @Benchmark
+    public CustomUserDetails byEmail() {
+        String email = emails[nextIndex()];
+        return projection
+                ? fromAuthUser(userRepository.findAuthUserByEmail(email).orElseThrow())
+                : fromEntity(userRepository.findByEmail(email).orElseThrow());
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == users ? 0 : index + 1;
+        return index;
+    }
+
+    // Same mappings as CustomUserDetailsService, before and after the projection
+    private static CustomUserDetails fromAuthUser(AuthUser user) {
+        return new CustomUserDetails(user.id(), user.email(), user.password(), user.roles(), user.enabled());
+    }
+
+    private static CustomUserDetails fromEntity(User user) {
+        return new CustomUserDetails(user.getId(), user.getEmail(), user.getPassword(),
+                user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet()), user.isEnabled());
+    }
+}
@@ -0,0 +1,96 @@
+package edu.teleinformatics.core.search.index;
+
+import edu.teleinformatics.core.config.UserSearchProperties;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.search.dto.UserSuggestion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Autocomplete searches over an index of {@code users} generated users, one in ten a teacher. The startup scan runs
+ * against a mocked DataSource that returns no rows, the users are added through putUser/putProfile like the listener
+ * does. The names are copied per user like rows read from the database, so the retained heap measured around the
+ * setup (used heap after a full GC, before and after) is comparable with the memory gauge; both are printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserSearchIndexBenchmark {
+    private static final String[] FIRST_NAMES = {"María", "José", "Ana", "Luis", "Sofía", "Jesús", "Andrea", "Martín", "Valeria", "Ángel", "Camila", "Raúl"};
+    private static final String[] LAST_NAMES = {"García", "Hernández", "López", "Martínez", "González", "Pérez", "Rodríguez", "Sánchez", "Ramírez", "Núñez", "Gutiérrez", "Díaz"};
+
+    @Param({"100000"})
+    private int users;
+
+    private UserSearchIndex index;
+
+    @Setup
+    public void setup() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        index = new UserSearchIndex(mock(DataSource.class, RETURNS_DEEP_STUBS), new UserSearchProperties(), meterRegistry);
+        index.load();
+        long before = usedHeap();
+
+        Random random = new Random(42);
+        for (int i = 0; i < users; i++) {
+            String firstName = new String(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+            String lastName = new String(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+            UUID id = UUID.randomUUID();
+            RoleEnum role = i % 10 == 0 ? RoleEnum.ROLE_TEACHER : RoleEnum.ROLE_STUDENT;
+            index.putUser(id, "user" + i + "@alumnos.udg.mx", true, List.of(role));
+            index.putProfile(id, firstName, lastName);
+        }
+
+        long measured = usedHeap() - before;
+        double estimated = meterRegistry.get("users.search.index.memory").gauge().value();
+        System.out.printf("%nIndexed users: %d, measured: %.1f MB (%.0f bytes per user), estimated: %.1f MB (%.0f bytes per user), estimated/measured: %.2f%n",
+                users, measured / 1024.0 / 1024, (double) measured / users, estimated / 1024 / 1024, estimated / users, estimated / measured);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) { // A few rounds, until the finalizable and soft references are gone
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    @Benchmark
+    public List<UserSuggestion> singlePrefix() {
+        return index.search("mar", null, 10);
+    }
+
+    @Benchmark
+    public List<UserSuggestion> twoWordsAccentInsensitive() {
+        return index.search("jose gonz", RoleEnum.ROLE_STUDENT, 10);
+    }
+
+    @Benchmark
+    public List<UserSuggestion> rareRole() {
+        return index.search("a", RoleEnum.ROLE_COORDINATOR, 10); // No coordinators: scans up to max-scanned postings
+    }
+
+    @Benchmark
+    public List<UserSuggestion> emailPrefix() {
+        return index.search("user4242@", null, 10);
+    }
+}
@@ -0,0 +1,43 @@
+package edu.teleinformatics.core.security;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getAuthorities is called by JwtFilter and again by every authorization check of the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomUserDetailsBenchmark {
+
+    @Param({"1", "3"})
+    private int roleCount;
+
+    private CustomUserDetails userDetails;
+
+    @Setup
+    public void setup() {
+        Set<RoleEnum> roles = Set.copyOf(Arrays.asList(RoleEnum.values()).subList(0, roleCount));
+        userDetails = new CustomUserDetails(UUID.randomUUID(), "student@alumnos.udg.mx", "hash", roles, true);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
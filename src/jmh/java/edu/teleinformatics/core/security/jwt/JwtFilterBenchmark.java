@@ -0,0 +1,91 @@
+package edu.teleinformatics.core.security.jwt;
+
+import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.db.token.repository.RevokedTokenRepository;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.invalidation.InvalidationOutbox;
+import edu.teleinformatics.core.security.CustomUserDetails;
+import edu.teleinformatics.core.security.CustomUserDetailsService;
+import edu.teleinformatics.core.security.DisabledUserRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * One authenticated request through JwtFilter with a real JwtService and stubbed user lookups, so the score is the
+ * filter's own work (header parsing, claims, principal and security context) without database time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean statelessPrincipal;
+
+    private JwtFilter jwtFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setup() {
+        JwtProperties properties = JwtServiceBenchmark.properties(10_000);
+        properties.getStatelessPrincipal().setEnabled(statelessPrincipal);
+        JwtService jwtService = new JwtService(properties, new SimpleMeterRegistry());
+
+        UUID id = UUID.randomUUID();
+        CustomUserDetails principal = new CustomUserDetails(id, "student@alumnos.udg.mx", "hash", Set.of(RoleEnum.ROLE_STUDENT), true);
+
+        // Stub-only mocks don't record invocations, so they don't grow the heap across millions of calls
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class, withSettings().stubOnly());
+        when(userDetailsService.loadUserById(any())).thenReturn(principal);
+        DisabledUserRegistry disabledUserRegistry = mock(DisabledUserRegistry.class, withSettings().stubOnly());
+        when(disabledUserRegistry.isLoaded()).thenReturn(true);
+        when(disabledUserRegistry.isDisabled(any())).thenReturn(false);
+        JwtRejectionWriter rejectionWriter = mock(JwtRejectionWriter.class, withSettings().stubOnly());
+        // Real registry with one unrelated revoked token, so the lookup runs instead of the empty-set shortcut
+        RevokedTokenRegistry revokedTokenRegistry = new RevokedTokenRegistry(mock(RevokedTokenRepository.class, withSettings().stubOnly()),
+                mock(InvalidationOutbox.class, withSettings().stubOnly()), mock(PlatformTransactionManager.class, withSettings().stubOnly()),
+                properties, new SimpleMeterRegistry());
+        revokedTokenRegistry.load();
+        revokedTokenRegistry.add(UUID.randomUUID(), Instant.now().plusSeconds(3600));
+
+        jwtFilter = new JwtFilter(jwtService, properties, userDetailsService, disabledUserRegistry, rejectionWriter, revokedTokenRegistry);
+
+        request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(id, "student@alumnos.udg.mx", List.of("ROLE_STUDENT")));
+        response = new MockHttpServletResponse();
+        filterChain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void authenticatedRequest(Blackhole blackhole) throws Exception {
+        jwtFilter.doFilter(request, response, filterChain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext(); // Every request starts with an empty context, as it does behind the servlet container
+    }
+}
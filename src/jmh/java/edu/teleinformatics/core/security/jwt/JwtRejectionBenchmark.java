@@ -0,0 +1,115 @@
+package edu.teleinformatics.core.security.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.teleinformatics.core.auth.exception.JwtExpiredException;
+import edu.teleinformatics.core.config.ErrorLoggingProperties;
+import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.exception.GlobalExceptionHandler;
+import edu.teleinformatics.core.exception.fingerprint.service.ErrorFingerprintStore;
+import edu.teleinformatics.core.exception.logging.ErrorLogSampler;
+import edu.teleinformatics.core.security.CustomAuthenticationEntryPoint;
+import edu.teleinformatics.core.security.CustomUserDetailsService;
+import edu.teleinformatics.core.security.DisabledUserRegistry;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A client retrying the same expired bearer token, rejected by JwtFilter ({@code writer}) or the way it used to be:
+ * a JwtExpiredException through CustomAuthenticationEntryPoint, the ExceptionHandlerExceptionResolver and
+ * GlobalExceptionHandler ({@code exceptionResolver}). JwtFilter verifies the token once and answers the retries from
+ * JwtService's rejected-token cache through JwtRejectionWriter; the old path parses it, with jjwt's exception, every
+ * time. Compare gc.alloc.rate.norm as well as the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtRejectionBenchmark {
+
+    @Param({"writer", "exceptionResolver"})
+    private String path;
+
+    private JwtService jwtService;
+    private JwtFilter jwtFilter;
+    private CustomAuthenticationEntryPoint entryPoint;
+    private StaticWebApplicationContext context;
+    private MockHttpServletRequest request;
+    private FilterChain filterChain;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Windows are never closed without a scheduler, so after the first lines every rejection takes the suppressed path
+        ErrorLogSampler errorLogSampler = new ErrorLogSampler(new ErrorLoggingProperties(), meterRegistry);
+
+        JwtProperties properties = JwtServiceBenchmark.properties(10_000);
+        properties.setExpiration(-TimeUnit.MINUTES.toMillis(1));
+        jwtService = new JwtService(properties, meterRegistry);
+        token = jwtService.generateToken(UUID.randomUUID(), "student@alumnos.udg.mx", List.of("ROLE_STUDENT"));
+
+        jwtFilter = new JwtFilter(jwtService, properties,
+                mock(CustomUserDetailsService.class, withSettings().stubOnly()),
+                mock(DisabledUserRegistry.class, withSettings().stubOnly()),
+                new JwtRejectionWriter(new ObjectMapper(), errorLogSampler, meterRegistry),
+                mock(RevokedTokenRegistry.class, withSettings().stubOnly()));
+
+        context = new StaticWebApplicationContext();
+        context.registerBean(GlobalExceptionHandler.class, () -> new GlobalExceptionHandler(meterRegistry, new ErrorFingerprintStore(16, meterRegistry), errorLogSampler));
+        context.refresh();
+        ExceptionHandlerExceptionResolver resolver = new ExceptionHandlerExceptionResolver();
+        resolver.setApplicationContext(context);
+        resolver.setMessageConverters(List.of(new MappingJackson2HttpMessageConverter()));
+        resolver.afterPropertiesSet();
+        entryPoint = new CustomAuthenticationEntryPoint(resolver);
+
+        request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        filterChain = (req, res) -> {
+            throw new IllegalStateException("An expired token must not reach the chain");
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse expiredToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        if (path.equals("writer")) {
+            jwtFilter.doFilter(request, response, filterChain);
+        } else {
+            try {
+                jwtService.extractClaims(token);
+            } catch (ExpiredJwtException e) {
+                entryPoint.commence(request, response, new JwtExpiredException("Jwt is expired", e));
+            }
+        }
+        return response;
+    }
+}
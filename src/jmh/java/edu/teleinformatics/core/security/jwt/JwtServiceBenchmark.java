@@ -0,0 +1,64 @@
+package edu.teleinformatics.core.security.jwt;
+
+import edu.teleinformatics.core.config.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing and checking a token. With {@code claimsCache=false} the verified-claims cache is sized to zero, so
+ * every call pays the full HMAC verification and JSON decoding, which is what a token seen for the first time costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+    static final String SECRET_KEY = "benchmark-secret-key-with-at-least-256-bits-for-hs256";
+
+    @Param({"true", "false"})
+    private boolean claimsCache;
+
+    private JwtService jwtService;
+    private UUID id;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(properties(claimsCache ? 10_000 : 0), new SimpleMeterRegistry());
+        id = UUID.randomUUID();
+        token = jwtService.generateToken(id, "student@alumnos.udg.mx", List.of("ROLE_STUDENT"));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(id, "student@alumnos.udg.mx", List.of("ROLE_STUDENT"));
+    }
+
+    @Benchmark
+    public String extractClaim() {
+        return jwtService.extractClaim(token, "email", String.class);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    static JwtProperties properties(long claimsCacheSize) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecretKey(SECRET_KEY);
+        properties.setExpiration(TimeUnit.HOURS.toMillis(1));
+        properties.getClaimsCache().setMaximumSize(claimsCacheSize);
+        return properties;
+    }
+}
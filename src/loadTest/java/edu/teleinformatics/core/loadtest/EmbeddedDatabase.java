@@ -0,0 +1,77 @@
+package edu.teleinformatics.core.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * In-process MariaDB (MySQL compatible) started from the binaries bundled with MariaDB4j, so the harness needs no
+ * database server. The schema is left empty, Flyway creates it when the application starts. Also used by the JMH
+ * benchmarks that need a database.
+ */
+public class EmbeddedDatabase implements AutoCloseable {
+    static final String NAME = "teleinformatics_loadtest";
+    static final String USER = "root"; // MariaDB4j's root account has no password
+
+    private final DB db;
+    private final int port;
+
+    private EmbeddedDatabase(DB db, int port) {
+        this.db = db;
+        this.port = port;
+    }
+
+    public static EmbeddedDatabase start() throws ManagedProcessException, SQLException {
+        DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder()
+                .setPort(0) // Picks a free port
+                .addArg("--character-set-server=utf8mb4")
+                .addArg("--collation-server=utf8mb4_unicode_ci");
+        if ("root".equals(System.getProperty("user.name"))) {
+            builder.addArg("--user=root"); // mariadbd refuses to run as root unless told to, as in most containers and CI runners
+        }
+        DBConfiguration configuration = builder.build();
+
+        DB db = DB.newEmbeddedDB(configuration);
+        db.start();
+        try {
+            createSchema(configuration.getPort());
+        } catch (SQLException | RuntimeException e) {
+            db.stop(); // Otherwise the server process keeps the harness JVM alive
+            throw e;
+        }
+        return new EmbeddedDatabase(db, configuration.getPort());
+    }
+
+    /**
+     * Command line arguments that point the application at this database. They win over the environment and .env, so
+     * the application can't reach a real database.
+     */
+    public String[] applicationArguments() {
+        return new String[]{
+                "--DB_HOST=localhost",
+                "--DB_PORT=" + port,
+                "--MYSQL_DB_NAME=" + NAME,
+                "--MYSQL_USER=" + USER,
+                "--MYSQL_PASSWORD="
+        };
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        db.stop();
+    }
+
+    // Over JDBC rather than DB.createDB, which runs the bundled mariadb client, linked against libncurses.so.5
+    private static void createSchema(int port) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/", USER, "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS " + NAME);
+        }
+    }
+}
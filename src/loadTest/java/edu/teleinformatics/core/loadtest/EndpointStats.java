@@ -0,0 +1,59 @@
+package edu.teleinformatics.core.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds, 3 significant digits) and response status counts of one endpoint during one workload.
+ */
+class EndpointStats {
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder(); // Requests that got no HTTP response at all
+    private volatile long elapsedNanos;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(int status, long latencyNanos) {
+        latencies.recordValue(Math.max(1, latencyNanos / 1_000));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    String format() {
+        long count = latencies.getTotalCount();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, counter) -> statusCounts.put(status, counter.sum()));
+
+        return String.format("%-28s %9d %10.1f %9.2f %9.2f %9.2f %9.2f  %s%s",
+                name, count, seconds > 0 ? count / seconds : 0,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()),
+                statusCounts, failures.sum() > 0 ? " failures=" + failures.sum() : "");
+    }
+
+    static String header() {
+        return String.format("%-28s %9s %10s %9s %9s %9s %9s  %s",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+}
@@ -0,0 +1,161 @@
+package edu.teleinformatics.core.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.teleinformatics.core.TeleinformaticsCoreApplication;
+import edu.teleinformatics.core.auth.dto.AuthComplete;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Capacity check for the authentication path. Starts an embedded MariaDB, boots the application against it (Flyway
+ * applies the migrations) and drives three workloads back to back over real HTTP:
+ * <ol>
+ *     <li>Register burst: {@code loadtest.users} new accounts.</li>
+ *     <li>Login storm: {@code loadtest.logins} logins spread over those accounts.</li>
+ *     <li>Authenticated requests: {@code loadtest.requests} calls with the issued tokens, through JwtFilter.</li>
+ * </ol>
+ * Each workload runs with {@code loadtest.concurrency} clients that send the next request as soon as the previous one
+ * answers (closed loop), then prints throughput and p50/p99/p999 latencies per endpoint.
+ * <p>
+ * Application settings are taken from the environment as usual, e.g. {@code AUTH_BCRYPT_STRENGTH} or
+ * {@code JWT_STATELESS_PRINCIPAL}, except the datasource, which always points at the embedded database.
+ */
+public class LoadTestHarness {
+    private static final String EMAIL_DOMAIN = "@alumnos.udg.mx";
+    private static final String PASSWORD = "loadtest-password";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int concurrency;
+
+    LoadTestHarness(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 500);
+        int logins = Integer.getInteger("loadtest.logins", users * 2);
+        int requests = Integer.getInteger("loadtest.requests", 50_000);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+
+        try (EmbeddedDatabase database = EmbeddedDatabase.start();
+             ConfigurableApplicationContext context = startApplication(database)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestHarness harness = new LoadTestHarness("http://localhost:" + port, concurrency);
+
+            System.out.printf("%nLoad test: %d users, %d logins, %d authenticated requests, %d concurrent clients%n%n",
+                    users, logins, requests, concurrency);
+            System.out.println(EndpointStats.header());
+
+            String runId = Long.toString(System.currentTimeMillis(), 36); // Keeps emails unique if the database is reused
+
+            List<String> emails = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                emails.add("loadtest." + runId + "." + i + EMAIL_DOMAIN);
+            }
+
+            harness.run("POST /auth/register", users, i -> harness.post("/auth/register", emails.get(i)), null);
+
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            harness.run("POST /auth/login", logins, i -> harness.post("/auth/login", emails.get(i % users)),
+                    body -> tokens.add(harness.objectMapper.readValue(body, AuthComplete.class).jwt()));
+
+            if (tokens.isEmpty()) {
+                System.out.println("No login succeeded, skipping authenticated requests");
+                return;
+            }
+            List<String> issuedTokens = List.copyOf(tokens);
+            harness.run("GET /api/loadtest/me", requests, i -> HttpRequest.newBuilder(harness.uri("/api/loadtest/me"))
+                    .header("Authorization", "Bearer " + issuedTokens.get(i % issuedTokens.size()))
+                    .GET()
+                    .build(), null);
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(EmbeddedDatabase database) {
+        return new SpringApplicationBuilder(TeleinformaticsCoreApplication.class)
+                .profiles("loadtest")
+                .run(database.applicationArguments());
+    }
+
+    /**
+     * Sends {@code total} requests with {@code concurrency} clients and prints the endpoint's line of the report.
+     * Bodies of 2xx responses are passed to {@code onSuccess}, if given.
+     */
+    private void run(String name, int total, IntFunction<HttpRequest> requestFactory, BodyHandler onSuccess) {
+        EndpointStats stats = new EndpointStats(name);
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < total) {
+                        send(requestFactory.apply(i), stats, onSuccess);
+                    }
+                });
+            }
+        } // Closing the executor waits for every client to finish
+        stats.finish(System.nanoTime() - start);
+
+        System.out.println(stats.format());
+    }
+
+    private void send(HttpRequest request, EndpointStats stats, BodyHandler onSuccess) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            stats.record(response.statusCode(), System.nanoTime() - start);
+
+            if (onSuccess != null && response.statusCode() / 100 == 2) {
+                onSuccess.handle(response.body());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            stats.recordFailure();
+        }
+    }
+
+    private HttpRequest post(String path, String email) {
+        try {
+            String body = objectMapper.writeValueAsString(Map.of("email", email, "password", PASSWORD));
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize request body", e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    @FunctionalInterface
+    private interface BodyHandler {
+        void handle(String body) throws Exception;
+    }
+}
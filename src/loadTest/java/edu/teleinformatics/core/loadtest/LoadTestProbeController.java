@@ -0,0 +1,24 @@
+package edu.teleinformatics.core.loadtest;
+
+import edu.teleinformatics.core.security.CustomUserDetails;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * Authenticated endpoint that only exists in the load harness. It does no work of its own, so its latency is the cost
+ * of JwtFilter, the security chain and Spring MVC for every authenticated request.
+ */
+@RestController
+@RequestMapping("/api/loadtest")
+class LoadTestProbeController {
+
+    @GetMapping("/me")
+    ResponseEntity<UUID> me(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        return ResponseEntity.ok(userDetails.getId());
+    }
+}
@@ -3,15 +3,23 @@ package edu.teleinformatics.core.auth.controller;
 import edu.teleinformatics.core.auth.dto.AuthComplete;
 import edu.teleinformatics.core.auth.dto.CreateUser;
 import edu.teleinformatics.core.auth.dto.LoginUser;
+import edu.teleinformatics.core.auth.dto.LogoutRequest;
+import edu.teleinformatics.core.auth.dto.RefreshTokenRequest;
 import edu.teleinformatics.core.auth.service.AuthService;
+import edu.teleinformatics.core.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -24,13 +32,29 @@ public class AuthController {
 
     @PostMapping("/register") // Endpoint for user registration
     @Operation(summary = "Register a new user", description = "Create a new user account in the system") // Swagger documentation
-    public ResponseEntity<AuthComplete> createUser(@Valid @RequestBody CreateUser createUser) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(authService.createUser(createUser));
+    public ResponseEntity<AuthComplete> createUser(@Valid @RequestBody CreateUser createUser, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(authService.createUser(createUser, request.getRemoteAddr()));
     }
 
     @PostMapping("/login")
     @Operation(summary = "Login a user", description = "Authenticate a user and return an authentication token") // Swagger documentation
-    public ResponseEntity<AuthComplete> loginUser(@Valid @RequestBody LoginUser loginUser) {
-        return ResponseEntity.status(HttpStatus.OK).body(authService.login(loginUser));
+    public ResponseEntity<AuthComplete> loginUser(@Valid @RequestBody LoginUser loginUser, HttpServletRequest request) {
+        return ResponseEntity.status(HttpStatus.OK).body(authService.login(loginUser, request.getRemoteAddr()));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh the access token", description = "Exchange a refresh token for a new access token and a new refresh token") // Swagger documentation
+    public ResponseEntity<AuthComplete> refresh(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        return ResponseEntity.status(HttpStatus.OK).body(authService.refresh(refreshTokenRequest));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Logout", description = "Revokes the access token of the request and, when given, the refresh token of the session") // Swagger documentation
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                       @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @Valid @RequestBody(required = false) LogoutRequest logoutRequest) {
+        authService.logout(authorization.substring("Bearer ".length()), userDetails.getId(), logoutRequest);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -2,5 +2,5 @@ package edu.teleinformatics.core.auth.dto;
 
 import java.util.UUID;
 
-public record AuthComplete(UUID id, String jwt) {
+public record AuthComplete(UUID id, String jwt, String refreshToken) {
 }
@@ -0,0 +1,10 @@
+package edu.teleinformatics.core.auth.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+
+public record LogoutRequest(
+        @Size(max = 100, message = "Refresh token is too long")
+        @Schema(description = "Refresh token of the session, revoked together with the access token when present")
+        String refreshToken) {
+}
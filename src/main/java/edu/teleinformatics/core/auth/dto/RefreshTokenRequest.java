@@ -0,0 +1,12 @@
+package edu.teleinformatics.core.auth.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record RefreshTokenRequest(
+        @NotBlank(message = "Refresh token cannot be blank")
+        @Size(max = 100, message = "Refresh token is too long")
+        @Schema(description = "Refresh token returned by login, register or a previous refresh")
+        String refreshToken) {
+}
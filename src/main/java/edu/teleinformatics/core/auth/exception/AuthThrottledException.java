@@ -0,0 +1,22 @@
+package edu.teleinformatics.core.auth.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class AuthThrottledException extends RuntimeException {
+  private final Duration retryAfter;
+
+  public AuthThrottledException(String message, Duration retryAfter) {
+    super(message, null, false, false); // No stack trace, this is thrown for every rejected attempt of an attack
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * The wait for the Retry-After header, in whole seconds rounded up: a client retrying early is rejected again.
+   */
+  public long getRetryAfterSeconds() {
+    return Math.max(1, Math.ceilDiv(retryAfter.toNanos(), 1_000_000_000L));
+  }
+}
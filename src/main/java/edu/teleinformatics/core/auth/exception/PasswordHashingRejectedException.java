@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.auth.exception;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.auth.exception;
+
+public class RefreshTokenInvalidException extends RuntimeException {
+  public RefreshTokenInvalidException(String message) {
+    super(message);
+  }
+}
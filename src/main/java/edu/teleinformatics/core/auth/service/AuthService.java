@@ -3,25 +3,36 @@ package edu.teleinformatics.core.auth.service;
 import edu.teleinformatics.core.auth.dto.AuthComplete;
 import edu.teleinformatics.core.auth.dto.CreateUser;
 import edu.teleinformatics.core.auth.dto.LoginUser;
+import edu.teleinformatics.core.auth.dto.LogoutRequest;
+import edu.teleinformatics.core.auth.dto.RefreshTokenRequest;
+import edu.teleinformatics.core.auth.exception.PasswordHashingRejectedException;
 import edu.teleinformatics.core.auth.exception.UserAlreadyExistsException;
+import edu.teleinformatics.core.db.routing.ReadYourWrites;
 import edu.teleinformatics.core.security.CustomUserDetails;
 import edu.teleinformatics.core.security.jwt.JwtService;
+import edu.teleinformatics.core.security.jwt.RevokedTokenRegistry;
+import edu.teleinformatics.core.security.throttle.AuthThrottle;
 import edu.teleinformatics.core.db.user.entity.Role;
 import edu.teleinformatics.core.db.user.entity.RoleEnum;
 import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.db.user.cache.RegisteredEmailFilter;
 import edu.teleinformatics.core.db.user.exception.RoleNotFoundException;
 import edu.teleinformatics.core.db.user.repository.RoleRepository;
 import edu.teleinformatics.core.db.user.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.security.authentication.AuthenticationManager;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -32,39 +43,109 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final AuthThrottle authThrottle;
+    private final TransactionTemplate transactionTemplate;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final ReadYourWrites readYourWrites;
+    private final RevokedTokenRegistry revokedTokenRegistry;
 
-    @Transactional
-    public AuthComplete createUser(CreateUser createUser) {
-        String hashedPassword = passwordEncoder.encode(createUser.password());
+    // The throttle and the BCrypt hash run before the transaction, so neither holds a pooled connection.
+    public AuthComplete createUser(CreateUser createUser, String clientAddress) {
+        authThrottle.checkRegister(clientAddress);
 
-        Role initialRole = roleRepository.findByName(RoleEnum.ROLE_STUDENT)
-                .orElseThrow(() -> new RoleNotFoundException("Default role not found"));
+        // Duplicates (retries, double submits) are rejected before hashing; new emails usually skip the query entirely.
+        if (registeredEmailFilter.isRegistered(createUser.email())) {
+            throw new UserAlreadyExistsException("The email " + createUser.email() + " is already registered.");
+        }
+
+        String hashedPassword = passwordEncoder.encode(createUser.password());
 
         try {
-            User user = userRepository.saveAndFlush(new User(createUser.email(), hashedPassword, initialRole));
+            AuthComplete authComplete = transactionTemplate.execute(status -> {
+                Role initialRole = roleRepository.findByName(RoleEnum.ROLE_STUDENT)
+                        .orElseThrow(() -> new RoleNotFoundException("Default role not found"));
+
+                User user = userRepository.saveAndFlush(new User(createUser.email(), hashedPassword, initialRole));
 
-            String jwt = jwtService.generateToken(user.getId(), user.getEmail(), List.of(initialRole.getName().name()));
+                String jwt = jwtService.generateToken(user.getId(), user.getEmail(), List.of(initialRole.getName().name()));
+                String refreshToken = refreshTokenService.issue(user.getId());
 
-            log.info("New user created. Id: {}", user.getId());
+                log.info("New user created. Id: {}", user.getId());
 
-            return new AuthComplete(user.getId(), jwt);
+                return new AuthComplete(user.getId(), jwt, refreshToken);
+            });
+            registeredEmailFilter.add(createUser.email()); // After commit
+            readYourWrites.recordUserWrite(authComplete.id(), createUser.email()); // The first login may come before replicas catch up
+            return authComplete;
         } catch (DataIntegrityViolationException e){
+            registeredEmailFilter.add(createUser.email()); // Registered concurrently or by another instance
             throw new UserAlreadyExistsException("The email " + createUser.email() + " is already registered.");
         }
     }
 
 
-    @Transactional(readOnly = true)
-    public AuthComplete login(LoginUser loginUser) {
-        var authToken = new UsernamePasswordAuthenticationToken(loginUser.email(), loginUser.password());
-        CustomUserDetails userDetails = (CustomUserDetails) authenticationManager.authenticate(authToken).getPrincipal();
+    // No transaction here: it would hold a pooled connection during the BCrypt check. The principal lookup and the
+    // refresh token insert each run in their own short transaction.
+    public AuthComplete login(LoginUser loginUser, String clientAddress) {
+        authThrottle.checkLogin(clientAddress, loginUser.email()); // Before the user lookup and the BCrypt check
 
-        List<String> roles = userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        var authToken = new UsernamePasswordAuthenticationToken(loginUser.email(), loginUser.password());
+        CustomUserDetails userDetails = (CustomUserDetails) authenticate(authToken).getPrincipal();
 
-        String jwt = jwtService.generateToken(userDetails.getId(), userDetails.getUsername(), roles);
+        String jwt = generateToken(userDetails);
+        String refreshToken = refreshTokenService.issue(userDetails.getId());
 
         log.info("User logged in. Id: {}", userDetails.getId());
 
-        return new AuthComplete(userDetails.getId(), jwt);
+        return new AuthComplete(userDetails.getId(), jwt, refreshToken);
+    }
+
+    /**
+     * Issues a new access token from a refresh token, without a password check. The refresh token is rotated.
+     */
+    public AuthComplete refresh(RefreshTokenRequest refreshTokenRequest) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenRequest.refreshToken());
+        CustomUserDetails userDetails = rotation.userDetails();
+
+        String jwt = generateToken(userDetails);
+
+        log.debug("Access token refreshed. Id: {}", userDetails.getId());
+
+        return new AuthComplete(userDetails.getId(), jwt, rotation.refreshToken());
+    }
+
+    /**
+     * Revokes the access token the request was authenticated with (JwtFilter already verified it) and, when given, the
+     * refresh token of the session. Tokens issued before jti claims existed can't be revoked and simply expire.
+     */
+    public void logout(String jwt, UUID userId, LogoutRequest logoutRequest) {
+        Claims claims = jwtService.extractClaims(jwt);
+        if (claims.getId() != null) {
+            revokedTokenRegistry.revoke(UUID.fromString(claims.getId()), claims.getExpiration().toInstant());
+        }
+
+        if (logoutRequest != null && logoutRequest.refreshToken() != null && !logoutRequest.refreshToken().isBlank()) {
+            refreshTokenService.revoke(logoutRequest.refreshToken(), userId);
+        }
+
+        log.info("User logged out. Id: {}", userId);
+    }
+
+    private String generateToken(CustomUserDetails userDetails) {
+        List<String> roles = userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+        return jwtService.generateToken(userDetails.getId(), userDetails.getUsername(), roles);
+    }
+
+    private Authentication authenticate(UsernamePasswordAuthenticationToken authToken) {
+        try {
+            return authenticationManager.authenticate(authToken);
+        } catch (InternalAuthenticationServiceException e) {
+            // DaoAuthenticationProvider wraps errors thrown while looking up the user, including the timing-attack hash.
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                throw rejected;
+            }
+            throw e;
+        }
     }
 }
@@ -0,0 +1,127 @@
+package edu.teleinformatics.core.auth.service;
+
+import edu.teleinformatics.core.auth.exception.RefreshTokenInvalidException;
+import edu.teleinformatics.core.config.AuthProperties;
+import edu.teleinformatics.core.db.token.entity.RefreshToken;
+import edu.teleinformatics.core.db.token.repository.RefreshTokenRepository;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.security.CustomUserDetails;
+import edu.teleinformatics.core.security.CustomUserDetailsService;
+import edu.teleinformatics.core.util.Sha256;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. A refresh token is 256 random bits, so a SHA-256 digest is enough to store it
+ * safely and a refresh costs one indexed lookup instead of a BCrypt verification. Each refresh marks the presented
+ * token as used and issues a new one in the same family; presenting a used token again means it was copied, so the
+ * whole family is revoked and the user has to log in again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final AuthProperties authProperties;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Starts a new token family for the user, on login or registration.
+     */
+    @Transactional
+    public String issue(UUID userId) {
+        return issue(userId, UuidV7.generate());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one and returns the principal to issue the access token for. The revocation
+     * done on reuse must survive the exception, hence no rollback for RefreshTokenInvalidException.
+     */
+    @Transactional(noRollbackFor = RefreshTokenInvalidException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .orElseThrow(() -> new RefreshTokenInvalidException("Unknown refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (token.getRevokedAt() != null) {
+            throw new RefreshTokenInvalidException("Refresh token was revoked");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new RefreshTokenInvalidException("Refresh token is expired");
+        }
+        // A concurrent refresh with the same token loses the conditional update and is treated as reuse as well.
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            revokeFamily(token, now, "reuse of a rotated refresh token");
+            throw new RefreshTokenInvalidException("Refresh token was already used");
+        }
+
+        CustomUserDetails userDetails = (CustomUserDetails) customUserDetailsService.loadUserById(token.getUserId());
+        if (!userDetails.isEnabled()) {
+            revokeFamily(token, now, "user is disabled");
+            throw new RefreshTokenInvalidException("User is disabled");
+        }
+
+        return new Rotation(userDetails, issue(token.getUserId(), token.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of a refresh token on logout, so neither it nor a token rotated from it can be used again. A
+     * token of another user, or an unknown one, is ignored.
+     */
+    @Transactional
+    public void revoke(String rawToken, UUID userId) {
+        refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .filter(token -> token.getUserId().equals(userId))
+                .ifPresent(token -> {
+                    int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now());
+                    log.debug("Refresh token family revoked on logout. User: {}, Family: {}, Tokens: {}", userId, token.getFamilyId(), revoked);
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Expired refresh tokens deleted. Count: {}", deleted);
+        }
+    }
+
+    private String issue(UUID userId, UUID familyId) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(authProperties.getRefreshToken().getTtl());
+        refreshTokenRepository.save(new RefreshToken(digest(rawToken), familyId, userId, expiresAt));
+        return rawToken;
+    }
+
+    private void revokeFamily(RefreshToken token, LocalDateTime now, String reason) {
+        int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+        log.warn("Refresh token family revoked. User: {}, Family: {}, Tokens: {}, Reason: {}", token.getUserId(), token.getFamilyId(), revoked, reason);
+    }
+
+    private static byte[] digest(String rawToken) {
+        return Sha256.digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Result of a refresh: the principal the new access token is for, and the refresh token that replaces the old one.
+     */
+    public record Rotation(CustomUserDetails userDetails, String refreshToken) {
+    }
+}
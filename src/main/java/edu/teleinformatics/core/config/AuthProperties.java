@@ -0,0 +1,85 @@
+package edu.teleinformatics.core.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "auth")
+@Data
+public class AuthProperties {
+    private PrincipalCache principalCache = new PrincipalCache();
+    private Hashing hashing = new Hashing();
+    private RefreshToken refreshToken = new RefreshToken();
+    private Throttle throttle = new Throttle();
+    private EmailFilter emailFilter = new EmailFilter();
+
+    /**
+     * Settings for the principal cache in CustomUserDetailsService. Entries are also invalidated explicitly when a
+     * user's enabled flag or roles change, the TTL only bounds how long changes made outside the application take to show.
+     */
+    @Data
+    public static class PrincipalCache {
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Settings for the password hashing pool. A thread count of 0 sizes the pool to the available processors; requests
+     * that find the queue full are rejected with a 429. The BCrypt strength is the log2 of the number of rounds.
+     */
+    @Data
+    public static class Hashing {
+        private int threads = 0;
+        private int queueCapacity = 64;
+        private int bcryptStrength = 10;
+
+        public int resolveThreads() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Settings for refresh tokens. The TTL is the longest a client can stay logged in without sending its password again;
+     * expired tokens are deleted every {@code cleanupInterval}.
+     */
+    @Data
+    public static class RefreshToken {
+        private Duration ttl = Duration.ofDays(30);
+        private Duration cleanupInterval = Duration.ofHours(1);
+    }
+
+    /**
+     * Settings for the login/registration throttle. Each bucket allows {@code burst} attempts at once and gives back one
+     * attempt every {@code refillEvery}; at most {@code maximumKeys} addresses and emails are tracked at a time.
+     */
+    @Data
+    public static class Throttle {
+        private boolean enabled = true;
+        private long maximumKeys = 100_000;
+        private Bucket perAddress = new Bucket(20, Duration.ofSeconds(3));
+        private Bucket perEmail = new Bucket(5, Duration.ofSeconds(12));
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Bucket {
+            private int burst;
+            private Duration refillEvery;
+        }
+    }
+
+    /**
+     * Sizing of the registered-email Bloom filter. Past {@code expectedEmails} the false positive rate grows, which only
+     * costs more existsByEmail queries on registration, never a wrong answer.
+     */
+    @Data
+    public static class EmailFilter {
+        private long expectedEmails = 1_000_000;
+        private double falsePositiveRate = 0.01;
+    }
+}
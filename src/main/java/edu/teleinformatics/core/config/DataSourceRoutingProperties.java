@@ -0,0 +1,30 @@
+package edu.teleinformatics.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routing of read-only transactions to MySQL replicas. Replicas use the credentials of spring.datasource unless
+ * {@code replicaUsername}/{@code replicaPassword} are set. A replica that fails to hand out a connection is skipped for
+ * {@code failureCooldown}; with every replica skipped, reads go to the primary. For {@code readYourWritesWindow} after a
+ * user is registered or changed, that user's principal is read from the primary, so replication lag can't hide the write.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "datasource-routing")
+@Data
+public class DataSourceRoutingProperties {
+    private boolean enabled = false;
+    private List<String> replicaUrls = new ArrayList<>();
+    private String replicaUsername;
+    private String replicaPassword;
+    private int replicaMaximumPoolSize = 10;
+    private Duration replicaConnectionTimeout = Duration.ofSeconds(1); // Short, a replica that is down fails over quickly
+    private Duration failureCooldown = Duration.ofSeconds(30);
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    private long readYourWritesMaximumKeys = 100_000;
+}
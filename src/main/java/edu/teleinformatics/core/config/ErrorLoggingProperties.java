@@ -0,0 +1,38 @@
+package edu.teleinformatics.core.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sampling of the logs written by GlobalExceptionHandler. Each ErrorHandler code logs a {@code sampleRate} fraction of
+ * its errors and at most {@code maxPerWindow} of them per {@code window}; the rest are only counted, and a summary with
+ * the number suppressed is logged when the window closes. Codes without an entry in {@code codes} use {@code defaults}.
+ * The api.errors metric always counts every error.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "error-logging")
+@Data
+public class ErrorLoggingProperties {
+    private Duration window = Duration.ofSeconds(10);
+    private Policy defaults = new Policy(1.0, 20);
+    private Map<String, Policy> codes = new HashMap<>();
+
+    public Policy policyFor(String errorCode) {
+        return codes.getOrDefault(errorCode, defaults);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Policy {
+        private double sampleRate = 1.0;
+        private int maxPerWindow = 20;
+    }
+}
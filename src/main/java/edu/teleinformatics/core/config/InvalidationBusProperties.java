@@ -0,0 +1,25 @@
+package edu.teleinformatics.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the invalidation bus over the invalidation_outbox table. Every instance polls for new rows every
+ * {@code pollInterval}, {@code batchSize} at a time. A missing id (a transaction that took it hasn't committed yet) is
+ * waited for up to {@code gapGrace} before it is skipped as rolled back. Rows are kept for {@code retention}, which only
+ * needs to exceed the longest time an instance can fall behind.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "invalidation-bus")
+@Data
+public class InvalidationBusProperties {
+    private boolean enabled = true;
+    private Duration pollInterval = Duration.ofMillis(500);
+    private int batchSize = 500;
+    private Duration gapGrace = Duration.ofSeconds(5);
+    private Duration retention = Duration.ofHours(1);
+    private Duration compactionInterval = Duration.ofMinutes(5);
+}
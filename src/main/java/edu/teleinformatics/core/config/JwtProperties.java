@@ -4,10 +4,55 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "jwt")
 @Data
 public class JwtProperties {
     private String secretKey;
     private Long expiration;
+    private ClaimsCache claimsCache = new ClaimsCache();
+    private RejectedCache rejectedCache = new RejectedCache();
+    private StatelessPrincipal statelessPrincipal = new StatelessPrincipal();
+    private Revocation revocation = new Revocation();
+
+    /**
+     * Settings for the verified-claims cache used by JwtService. Entries are evicted at the token's own expiration,
+     * so the maximum size only needs to cover the number of distinct tokens seen during one token lifetime.
+     */
+    @Data
+    public static class ClaimsCache {
+        private long maximumSize = 10_000;
+    }
+
+    /**
+     * Settings for the rejected-token cache used by JwtService, which answers a retried expired or invalid token without
+     * verifying it again. Entries only leave by size.
+     */
+    @Data
+    public static class RejectedCache {
+        private long maximumSize = 10_000;
+    }
+
+    /**
+     * When enabled, JwtFilter builds the principal from the verified claims (subject, email and roles) instead of loading
+     * the user from the database on every request. Disabled accounts are still rejected through DisabledUserRegistry,
+     * which is refreshed from the users table every {@code disabledUsersRefresh}.
+     */
+    @Data
+    public static class StatelessPrincipal {
+        private boolean enabled = false;
+        private Duration disabledUsersRefresh = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings for the revoked-token denylist. Revoked ids leave memory on the first {@code tick} after their token's
+     * expiration; the revoked_tokens table is purged of expired rows every {@code cleanupInterval}.
+     */
+    @Data
+    public static class Revocation {
+        private Duration tick = Duration.ofSeconds(1);
+        private Duration cleanupInterval = Duration.ofHours(1);
+    }
 }
@@ -1,7 +1,9 @@
 package edu.teleinformatics.core.config;
 
+import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,6 +17,12 @@ public class OpenApiConfig {
                         .title("Teleinformatics API Core")
                         .version("1.0.0")
                         .description("Documentation for the Teleinformatics API Core")
+                )
+                .components(new Components()
+                        .addSecuritySchemes("Bearer Authentication", new SecurityScheme() // Referenced by @SecurityRequirement on protected controllers
+                                .type(SecurityScheme.Type.HTTP)
+                                .scheme("bearer")
+                                .bearerFormat("JWT"))
                 );
     }
 }
@@ -0,0 +1,21 @@
+package edu.teleinformatics.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the bulk roster import. Rows are hashed and written in chunks of {@code chunkSize}, each chunk in its own
+ * transaction. A hashing thread count of 0 uses every available processor.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "roster-import")
+@Data
+public class RosterImportProperties {
+    private int chunkSize = 500;
+    private int hashingThreads = 0;
+
+    public int resolveHashingThreads() {
+        return hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,16 @@
+package edu.teleinformatics.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the admin user export. Users are read in chunks of {@code chunkSize}, each chunk in its own short
+ * read-only transaction, so the export never keeps a transaction (or its MVCC snapshot) open for the whole download.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "user-export")
+@Data
+public class UserExportProperties {
+    private int chunkSize = 1000;
+}
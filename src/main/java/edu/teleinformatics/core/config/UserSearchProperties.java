@@ -0,0 +1,18 @@
+package edu.teleinformatics.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the user autocomplete. A search stops after {@code maxScanned} index postings even if it found fewer
+ * than the requested results, which bounds the cost of a one-letter query filtered by a rare role.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "user-search")
+@Data
+public class UserSearchProperties {
+    private int defaultResults = 10;
+    private int maxResults = 50;
+    private int maxScanned = 5000;
+}
@@ -0,0 +1,14 @@
+package edu.teleinformatics.core.db.outbox.projection;
+
+import edu.teleinformatics.core.invalidation.InvalidationKind;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One invalidation_outbox row. {@code email} and {@code enabled} are only set for USER events, {@code expiresAt} only
+ * for TOKEN events. {@code ageMillis} is how long ago the row was written, measured by the database clock.
+ */
+public record OutboxEvent(long id, InvalidationKind kind, UUID subjectId, String email, Boolean enabled, Instant expiresAt,
+                          UUID origin, long ageMillis) {
+}
@@ -0,0 +1,91 @@
+package edu.teleinformatics.core.db.outbox.repository;
+
+import edu.teleinformatics.core.db.outbox.projection.OutboxEvent;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.invalidation.InvalidationKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class InvalidationOutboxRepository {
+    private static final String SELECT_EVENTS = """
+            SELECT id, kind, subject_id, email, enabled, expires_at, origin,
+                   TIMESTAMPDIFF(MICROSECOND, created_at, NOW(3)) DIV 1000 AS age_millis
+            FROM invalidation_outbox
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(InvalidationKind kind, UUID subjectId, String email, Boolean enabled, Instant expiresAt, UUID origin) {
+        jdbcTemplate.update("INSERT INTO invalidation_outbox (kind, subject_id, email, enabled, expires_at, origin) VALUES (?, ?, ?, ?, ?, ?)",
+                kind.name(), UuidV7.toBytes(subjectId), email, enabled, expiresAt == null ? null : Timestamp.from(expiresAt), UuidV7.toBytes(origin));
+    }
+
+    /**
+     * Rows after the given id in id order: a range scan on the primary key, however large the table is.
+     */
+    public List<OutboxEvent> findAfter(long id, int limit) {
+        return jdbcTemplate.query(SELECT_EVENTS + "WHERE id > ? ORDER BY id LIMIT ?", InvalidationOutboxRepository::mapEvent, id, limit);
+    }
+
+    /**
+     * The rows among the given ids that exist (have been committed), in id order.
+     */
+    public List<OutboxEvent> findByIds(Collection<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(SELECT_EVENTS + "WHERE id IN (" + placeholders + ") ORDER BY id", InvalidationOutboxRepository::mapEvent, ids.toArray());
+    }
+
+    /**
+     * Ids of the rows in ({@code after}, {@code upTo}].
+     */
+    public List<Long> findIdsBetween(long after, long upTo) {
+        return jdbcTemplate.queryForList("SELECT id FROM invalidation_outbox WHERE id > ? AND id <= ? ORDER BY id", Long.class, after, upTo);
+    }
+
+    public long findMaxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM invalidation_outbox", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Id of the newest row written more than {@code seconds} ago (by the database clock), 0 when there is none. A
+     * backward scan of the created_at index that stops at the first row.
+     */
+    public long findNewestIdOlderThan(long seconds) {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM invalidation_outbox WHERE created_at < NOW(3) - INTERVAL ? SECOND ORDER BY created_at DESC, id DESC LIMIT 1",
+                Long.class, seconds);
+        return ids.isEmpty() ? 0 : ids.getFirst();
+    }
+
+    /**
+     * Deletes up to {@code limit} rows written more than {@code retentionSeconds} ago (by the database clock).
+     */
+    public int deleteOlderThan(long retentionSeconds, int limit) {
+        return jdbcTemplate.update("DELETE FROM invalidation_outbox WHERE created_at < NOW(3) - INTERVAL ? SECOND LIMIT ?", retentionSeconds, limit);
+    }
+
+    private static OutboxEvent mapEvent(ResultSet resultSet, int rowNum) throws SQLException {
+        Timestamp expiresAt = resultSet.getTimestamp("expires_at");
+        return new OutboxEvent(
+                resultSet.getLong("id"),
+                InvalidationKind.valueOf(resultSet.getString("kind")),
+                UuidV7.fromBytes(resultSet.getBytes("subject_id")),
+                resultSet.getString("email"),
+                resultSet.getObject("enabled", Boolean.class),
+                expiresAt == null ? null : expiresAt.toInstant(),
+                UuidV7.fromBytes(resultSet.getBytes("origin")),
+                resultSet.getLong("age_millis"));
+    }
+}
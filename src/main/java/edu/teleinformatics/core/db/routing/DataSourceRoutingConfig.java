@@ -0,0 +1,73 @@
+package edu.teleinformatics.core.db.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import edu.teleinformatics.core.config.DataSourceRoutingProperties;
+import edu.teleinformatics.core.metrics.PoolWaitTimingTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource when datasource-routing.enabled is true. The application DataSource is a
+ * LazyConnectionDataSourceProxy over the primary pool: it only fetches a real connection on the first statement, once
+ * the transaction has marked the connection read-only, and then takes it from ReplicaDataSource for read-only
+ * transactions (Spring Data finders, @Transactional(readOnly = true)) or from the primary for everything else.
+ * Work outside a transaction (Flyway, JdbcTemplate loads) also uses the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource-routing.enabled", havingValue = "true")
+@Slf4j
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, DataSourceProperties dataSourceProperties,
+                                               DataSourceRoutingProperties routingProperties, MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : routingProperties.getReplicaUrls()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url);
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setUsername(routingProperties.getReplicaUsername() != null ? routingProperties.getReplicaUsername() : dataSourceProperties.determineUsername());
+            replica.setPassword(routingProperties.getReplicaPassword() != null ? routingProperties.getReplicaPassword() : dataSourceProperties.determinePassword());
+            replica.setMaximumPoolSize(routingProperties.getReplicaMaximumPoolSize());
+            replica.setConnectionTimeout(routingProperties.getReplicaConnectionTimeout().toMillis());
+            replica.setInitializationFailTimeout(-1); // A replica that is down at startup is skipped, not fatal
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new PoolWaitTimingTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+            replicas.add(replica);
+        }
+
+        if (replicas.isEmpty()) {
+            log.warn("Datasource routing is enabled without replica URLs, read-only transactions will use the primary");
+        } else {
+            log.info("Datasource routing enabled. Replicas: {}, Read-your-writes window: {}", replicas.size(), routingProperties.getReadYourWritesWindow());
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, routingProperties.getFailureCooldown(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
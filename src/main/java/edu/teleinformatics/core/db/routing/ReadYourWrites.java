@@ -0,0 +1,78 @@
+package edu.teleinformatics.core.db.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.teleinformatics.core.config.DataSourceRoutingProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the users written by this instance during the last {@code readYourWritesWindow}, and sends reads of those
+ * users to the primary instead of a replica that may not have applied the write yet (a login right after registering,
+ * a role change followed by the next request). Without routing enabled, reads run unchanged.
+ */
+@Component
+public class ReadYourWrites {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<Object, Boolean> recentWrites;
+
+    public ReadYourWrites(DataSourceRoutingProperties properties) {
+        this.enabled = properties.isEnabled() && !properties.getReadYourWritesWindow().isZero();
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(properties.getReadYourWritesMaximumKeys())
+                .expireAfterWrite(properties.getReadYourWritesWindow())
+                .build();
+    }
+
+    /**
+     * Records a committed write of the user, by id and by email.
+     */
+    public void recordUserWrite(UUID id, String email) {
+        if (!enabled) {
+            return;
+        }
+        if (id != null) {
+            recentWrites.put(id, Boolean.TRUE);
+        }
+        if (email != null) {
+            recentWrites.put(emailKey(email), Boolean.TRUE);
+        }
+    }
+
+    public <T> T readUser(UUID id, Supplier<T> reader) {
+        return read(id, reader);
+    }
+
+    public <T> T readUser(String email, Supplier<T> reader) {
+        return read(emailKey(email), reader);
+    }
+
+    /**
+     * Whether the current thread is reading a recently written user. Checked by ReplicaDataSource.
+     */
+    static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    private <T> T read(Object key, Supplier<T> reader) {
+        if (!enabled || isPrimaryRequired() || recentWrites.getIfPresent(key) == null) {
+            return reader.get();
+        }
+
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return reader.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT); // The email column uses a case-insensitive collation
+    }
+}
@@ -0,0 +1,102 @@
+package edu.teleinformatics.core.db.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-only side of the routing: hands out connections from the replica pools in round-robin order. A replica that
+ * fails to give a connection is skipped for the failure cooldown and the next one is tried; when none is available, or
+ * the read must see a recent write (ReadYourWrites), the connection comes from the primary.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final long failureCooldownMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray skippedUntil; // Epoch millis, 0 while the replica is healthy
+
+    private final Counter[] replicaCounters;
+    private final Counter primaryCounter;
+    private final Counter[] failureCounters;
+
+    public ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas, Duration failureCooldown, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.failureCooldownMillis = failureCooldown.toMillis();
+        this.skippedUntil = new AtomicLongArray(replicas.size());
+
+        this.replicaCounters = new Counter[replicas.size()];
+        this.failureCounters = new Counter[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = replicas.get(i).getPoolName();
+            replicaCounters[i] = connectionCounter(meterRegistry, name);
+            failureCounters[i] = Counter.builder("db.routing.replica.failures")
+                    .description("Replica connection failures, each one skips the replica for the failure cooldown")
+                    .tag("target", name)
+                    .register(meterRegistry);
+        }
+        this.primaryCounter = connectionCounter(meterRegistry, "primary");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadYourWrites.isPrimaryRequired() && !replicas.isEmpty()) {
+            long now = System.currentTimeMillis();
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+
+            for (int i = 0; i < replicas.size(); i++) {
+                int index = (start + i) % replicas.size();
+                if (skippedUntil.get(index) > now) {
+                    continue;
+                }
+
+                try {
+                    Connection connection = replicas.get(index).getConnection();
+                    skippedUntil.set(index, 0);
+                    replicaCounters[index].increment();
+                    return connection;
+                } catch (SQLException e) {
+                    skippedUntil.set(index, now + failureCooldownMillis);
+                    failureCounters[index].increment();
+                    log.warn("Replica unavailable, skipped for {} ms. Replica: {}, Reason: {}", failureCooldownMillis, replicas.get(index).getPoolName(), e.getMessage());
+                }
+            }
+        }
+
+        primaryCounter.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * The replica pools are bound to their own credentials, so a connection for other credentials comes from the primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        primaryCounter.increment();
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("db.routing.connections")
+                .description("Connections handed to read-only transactions by target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
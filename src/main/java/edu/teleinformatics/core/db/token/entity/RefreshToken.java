@@ -0,0 +1,84 @@
+package edu.teleinformatics.core.db.token.entity;
+
+import edu.teleinformatics.core.db.util.AssignedIdEntity;
+import edu.teleinformatics.core.db.util.UuidV7;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A refresh token issued to a user. The token itself is only known by the client, the row keeps its SHA-256 digest.
+ * State changes (used, revoked) are done with conditional bulk updates in RefreshTokenRepository, never through setters.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class RefreshToken extends AssignedIdEntity {
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+    private byte[] tokenHash;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "family_id", nullable = false, length = 16)
+    private UUID familyId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "user_id", nullable = false, length = 16)
+    private UUID userId; // Plain id, refreshing never needs the User entity
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public RefreshToken(byte[] tokenHash, UUID familyId, UUID userId, LocalDateTime expiresAt) {
+        super(UuidV7.generate());
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+
+        Class<?> oEffectiveClass = o instanceof HibernateProxy proxy
+                ? proxy.getHibernateLazyInitializer().getPersistentClass()
+                : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy proxy
+                ? proxy.getHibernateLazyInitializer().getPersistentClass()
+                : getClass();
+
+        if (thisEffectiveClass != oEffectiveClass) return false;
+
+        RefreshToken refreshToken = (RefreshToken) o;
+        return getId() != null && Objects.equals(getId(), refreshToken.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy proxy
+                ? proxy.getHibernateLazyInitializer().getPersistentClass().hashCode()
+                : getClass().hashCode();
+    }
+}
@@ -0,0 +1,45 @@
+package edu.teleinformatics.core.db.token.repository;
+
+import edu.teleinformatics.core.db.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Revoked access token ids. Plain JDBC: rows are written once, read in bulk on startup and deleted when they expire,
+ * so an entity would add nothing.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevokedTokenRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(UUID jti, Instant expiresAt) {
+        // IGNORE: revoking the same token twice (a repeated logout) is not an error
+        jdbcTemplate.update("INSERT IGNORE INTO revoked_tokens (jti, expires_at) VALUES (?, ?)", UuidV7.toBytes(jti), Timestamp.from(expiresAt));
+    }
+
+    public boolean exists(UUID jti) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM revoked_tokens WHERE jti = ?)", Boolean.class, UuidV7.toBytes(jti)));
+    }
+
+    /**
+     * Passes every token that hasn't expired yet to {@code consumer}, with its expiration.
+     */
+    public void findLive(Instant now, BiConsumer<UUID, Instant> consumer) {
+        jdbcTemplate.query("SELECT jti, expires_at FROM revoked_tokens WHERE expires_at > ?",
+                resultSet -> {
+                    consumer.accept(UuidV7.fromBytes(resultSet.getBytes(1)), resultSet.getTimestamp(2).toInstant());
+                },
+                Timestamp.from(now));
+    }
+
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at <= ?", Timestamp.from(now));
+    }
+}
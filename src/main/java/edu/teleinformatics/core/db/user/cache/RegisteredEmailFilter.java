@@ -0,0 +1,172 @@
+package edu.teleinformatics.core.db.user.cache;
+
+import edu.teleinformatics.core.config.AuthProperties;
+import edu.teleinformatics.core.db.user.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of registered emails, so registration can tell a new email apart without a query and reject a duplicate
+ * before hashing its password. A negative answer is final; a positive one is confirmed with existsByEmail, because it
+ * may be a false positive. The filter is loaded from the users table on startup and updated on every registration.
+ * Users registered by other instances are not in this instance's filter; for those the unique constraint on
+ * users.email still rejects the insert, only the early rejection is lost.
+ */
+@Component
+@Slf4j
+public class RegisteredEmailFilter {
+    private final UserRepository userRepository;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final AtomicLong setBits = new AtomicLong();
+    private volatile boolean loaded; // Until the startup load finishes every email might be registered
+
+    private final Counter negativeCounter;
+    private final Counter duplicateCounter;
+    private final Counter falsePositiveCounter;
+
+    public RegisteredEmailFilter(UserRepository userRepository, DataSource dataSource, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE); // MySQL Connector/J streams rows one by one with this value
+
+        AuthProperties.EmailFilter properties = authProperties.getEmailFilter();
+        long expected = Math.max(1, properties.getExpectedEmails());
+        double falsePositiveRate = properties.getFalsePositiveRate();
+
+        // Optimal size and number of hash functions for the expected number of emails and false positive rate
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+
+        this.negativeCounter = checkCounter(meterRegistry, "negative");
+        this.duplicateCounter = checkCounter(meterRegistry, "duplicate");
+        this.falsePositiveCounter = checkCounter(meterRegistry, "false_positive");
+
+        Gauge.builder("auth.email.filter.size", () -> bitCount / 8)
+                .description("Memory used by the registered-email Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("auth.email.filter.fpp", this::expectedFalsePositiveRate)
+                .description("Current false positive probability of the registered-email Bloom filter")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        long[] count = {0};
+
+        streamingJdbcTemplate.query("SELECT email FROM users", resultSet -> {
+            add(resultSet.getString(1));
+            count[0]++;
+        });
+
+        loaded = true;
+        log.info("Registered email filter loaded. Emails: {}, Size: {} KB, Hash functions: {}, Time: {} ms",
+                count[0], bitCount / 8 / 1024, hashFunctions, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Exact answer to whether the email is registered, querying the database only when the filter can't rule it out.
+     */
+    public boolean isRegistered(String email) {
+        if (!mightContain(email)) {
+            negativeCounter.increment();
+            return false;
+        }
+
+        boolean exists = userRepository.existsByEmail(email);
+        (exists ? duplicateCounter : falsePositiveCounter).increment();
+        return exists;
+    }
+
+    public void add(String email) {
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hashes, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+
+            if ((current & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean mightContain(String email) {
+        if (!loaded) {
+            return true;
+        }
+
+        long[] hashes = hash(email);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hashes, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bitCount, hashFunctions);
+    }
+
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount); // Kirsch-Mitzenmacher: k indexes from two hashes
+    }
+
+    /**
+     * Two independent 64-bit hashes of the lower-cased email (the email column uses a case-insensitive collation).
+     */
+    private static long[] hash(String email) {
+        String normalized = email.toLowerCase(Locale.ROOT);
+
+        long h = 0xcbf29ce484222325L; // FNV-1a over the UTF-16 chars, then mixed twice to spread the bits
+        for (int i = 0; i < normalized.length(); i++) {
+            h ^= normalized.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1; // Odd, so the k indexes don't repeat
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.email.filter.checks")
+                .description("Registration email checks by result of the Bloom filter and the exact query")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package edu.teleinformatics.core.db.user.cache;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.user.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads every role once at startup, so the Role entity region and the findByName query cache are filled before the
+ * first registration or login needs them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoleCacheWarmer {
+    private final RoleRepository roleRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long loaded = 0;
+        for (RoleEnum name : RoleEnum.values()) {
+            if (roleRepository.findByName(name).isPresent()) {
+                loaded++;
+            }
+        }
+        log.info("Role cache warmed up. Roles: {}", loaded);
+    }
+}
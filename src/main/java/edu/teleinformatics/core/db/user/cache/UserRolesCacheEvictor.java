@@ -0,0 +1,35 @@
+package edu.teleinformatics.core.db.user.cache;
+
+import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Evicts the cached role assignments of a user. Hibernate keeps the user-roles region up to date for changes made through
+ * the entity; this covers users_roles rows written outside of it (JDBC batches, other instances).
+ */
+@Component
+@RequiredArgsConstructor
+public class UserRolesCacheEvictor {
+    private static final String USER_ROLES_COLLECTION = User.class.getName() + ".roles"; // Collection role, not the region name
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evict(UUID userId) {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictCollectionData(USER_ROLES_COLLECTION, userId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.userId() != null) {
+            evict(event.userId());
+        }
+    }
+}
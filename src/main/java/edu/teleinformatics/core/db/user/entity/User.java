@@ -1,32 +1,32 @@
 package edu.teleinformatics.core.db.user.entity;
 
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import edu.teleinformatics.core.db.util.AssignedIdEntity;
+import edu.teleinformatics.core.db.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy;
-import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.UUID;
 
 @Entity
 @Table(name = "users")
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter
-public class User {
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @JdbcTypeCode(SqlTypes.VARCHAR)
-    @Column(length = 36)
-    private UUID id;
-
+public class User extends AssignedIdEntity {
     @Column(name = "email", unique = true, nullable = false)
     private String email;
 
@@ -34,10 +34,10 @@ public class User {
     private String password;
 
     @Column(name = "enabled", nullable = false)
-    @Setter
     private boolean enabled = true;
 
     @ManyToMany(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles") // Caches role ids per user, the roles themselves come from the roles region
     @JoinTable(
             name = "users_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -53,14 +53,39 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private final List<UserAuthChangedEvent> domainEvents = new ArrayList<>(); // As in AbstractAggregateRoot, which can't be the superclass too
+
     public User(String email, String password, Role role) {
+        super(UuidV7.generate());
         this.email = email;
         this.password = password;
         roles.add(role);
     }
 
+    /**
+     * Changes to the enabled flag and to the roles register a UserAuthChangedEvent, which is published when the user is
+     * saved through UserRepository so cached principals can be invalidated after commit.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        domainEvents.add(new UserAuthChangedEvent(getId(), email, enabled));
+    }
+
     public void addRole(Role role) {
         roles.add(role);
+        domainEvents.add(new UserAuthChangedEvent(getId(), email, enabled));
+    }
+
+    @DomainEvents
+    Collection<UserAuthChangedEvent> domainEvents() {
+        return List.copyOf(domainEvents);
+    }
+
+    @AfterDomainEventPublication
+    void clearDomainEvents() {
+        domainEvents.clear();
     }
 
     @Override
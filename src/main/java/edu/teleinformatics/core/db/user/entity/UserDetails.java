@@ -1,31 +1,24 @@
 package edu.teleinformatics.core.db.user.entity;
 
+import edu.teleinformatics.core.db.util.AssignedIdEntity;
+import edu.teleinformatics.core.db.util.UuidV7;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.proxy.HibernateProxy;
-import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
-import java.util.UUID;
 
 @Entity
 @Table(name = "user_details")
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class UserDetails {
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @JdbcTypeCode(SqlTypes.VARCHAR)
-    @Column(length = 36)
-    private UUID id;
-
+public class UserDetails extends AssignedIdEntity {
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
@@ -50,16 +43,27 @@ public class UserDetails {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
-    @UpdateTimestamp
     @Column(name = "updated_at")
-    private LocalDateTime updatedAt;
+    private LocalDateTime updatedAt; // Profile version, see touch()
 
     public UserDetails(User user, String firstName, String lastName) {
+        super(UuidV7.generate());
         this.user = user;
         this.firstName = firstName;
         this.lastName = lastName;
     }
 
+    /**
+     * Sets updated_at on insert and on every update that changes a column. It is truncated to the column's microsecond
+     * precision here, instead of by MySQL's rounding, so the ETag computed from this instance after a save is the same
+     * one a later read from the database produces.
+     */
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,10 @@
+package edu.teleinformatics.core.db.user.event;
+
+import java.util.UUID;
+
+/**
+ * Published when a change that affects authentication (enabled flag or role assignments) is saved for a user.
+ * Listeners that keep in-memory copies of principals use it to invalidate them once the transaction commits.
+ */
+public record UserAuthChangedEvent(UUID userId, String email, boolean enabled) {
+}
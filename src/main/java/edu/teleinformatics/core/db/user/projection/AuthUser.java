@@ -0,0 +1,35 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Read-only view of the data needed to authenticate a user. Built from scalar query rows, so loading it creates no
+ * managed entities, no dirty-checking snapshots and no roles collection.
+ */
+public record AuthUser(UUID id, String email, String password, boolean enabled, Set<RoleEnum> roles) {
+
+    /**
+     * Folds the rows of one user (one per role) into a single AuthUser, or empty if the query found nothing.
+     */
+    public static Optional<AuthUser> fromRows(List<AuthUserRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<RoleEnum> roles = EnumSet.noneOf(RoleEnum.class);
+        for (AuthUserRow row : rows) {
+            if (row.role() != null) {
+                roles.add(row.role());
+            }
+        }
+
+        AuthUserRow first = rows.get(0);
+        return Optional.of(new AuthUser(first.id(), first.email(), first.password(), first.enabled(), Set.copyOf(roles)));
+    }
+}
@@ -0,0 +1,11 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+
+import java.util.UUID;
+
+/**
+ * One row of the authentication query: the user's credentials joined with one of its roles (null if it has none).
+ */
+public record AuthUserRow(UUID id, String email, String password, boolean enabled, RoleEnum role) {
+}
@@ -0,0 +1,10 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One user of the directory query, joined with its profile (null names when the user has no profile).
+ */
+public record DirectoryRow(UUID id, String email, boolean enabled, LocalDateTime createdAt, String firstName, String lastName, String avatarUrl) {
+}
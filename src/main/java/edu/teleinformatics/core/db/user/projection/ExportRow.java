@@ -0,0 +1,12 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One user of the export query with its profile (null columns when the user has no profile) and its role names joined
+ * by '|'. Rows are handed to the writer one at a time and never kept.
+ */
+public record ExportRow(UUID id, String email, boolean enabled, LocalDateTime createdAt, LocalDateTime updatedAt, String roles,
+                        String firstName, String lastName, String avatarUrl, String bio, LocalDateTime profileUpdatedAt) {
+}
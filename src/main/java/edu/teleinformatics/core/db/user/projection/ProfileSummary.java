@@ -0,0 +1,11 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Profile without its bio, for summaries and listings. Selecting only these columns keeps the TEXT column out of reads
+ * that don't show it.
+ */
+public record ProfileSummary(UUID userId, String firstName, String lastName, String avatarUrl, LocalDateTime updatedAt) {
+}
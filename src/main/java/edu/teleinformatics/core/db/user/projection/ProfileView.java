@@ -0,0 +1,10 @@
+package edu.teleinformatics.core.db.user.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Full profile, bio included.
+ */
+public record ProfileView(UUID userId, String firstName, String lastName, String avatarUrl, String bio, LocalDateTime updatedAt) {
+}
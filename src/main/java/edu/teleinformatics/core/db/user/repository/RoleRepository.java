@@ -2,13 +2,17 @@ package edu.teleinformatics.core.db.user.repository;
 
 import edu.teleinformatics.core.db.user.entity.Role;
 import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Integer> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true")) // Served from the query cache after the first call
     public Optional<Role> findByName(@NotNull RoleEnum name);
 }
@@ -0,0 +1,36 @@
+package edu.teleinformatics.core.db.user.repository;
+
+import edu.teleinformatics.core.db.user.entity.UserDetails;
+import edu.teleinformatics.core.db.user.projection.ProfileSummary;
+import edu.teleinformatics.core.db.user.projection.ProfileView;
+import jakarta.persistence.LockModeType;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserDetailsRepository extends JpaRepository<UserDetails, UUID> {
+    // Version of the profile for conditional requests, answered from idx_user_details_user_updated alone.
+    @Query("select d.updatedAt from UserDetails d where d.user.id = :userId")
+    Optional<LocalDateTime> findUpdatedAtByUserId(@NotNull @Param("userId") UUID userId);
+
+    @Query("select new edu.teleinformatics.core.db.user.projection.ProfileSummary(d.user.id, d.firstName, d.lastName, d.avatarUrl, d.updatedAt) " +
+            "from UserDetails d where d.user.id = :userId")
+    Optional<ProfileSummary> findSummaryByUserId(@NotNull @Param("userId") UUID userId);
+
+    @Query("select new edu.teleinformatics.core.db.user.projection.ProfileView(d.user.id, d.firstName, d.lastName, d.avatarUrl, d.bio, d.updatedAt) " +
+            "from UserDetails d where d.user.id = :userId")
+    Optional<ProfileView> findViewByUserId(@NotNull @Param("userId") UUID userId);
+
+    // Locks the row until the update commits, so two updates carrying the same If-Match can't both pass the check.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from UserDetails d where d.user.id = :userId")
+    Optional<UserDetails> findByUserIdForUpdate(@NotNull @Param("userId") UUID userId);
+}
@@ -0,0 +1,81 @@
+package edu.teleinformatics.core.db.user.repository;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.user.projection.DirectoryRow;
+import edu.teleinformatics.core.db.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Directory queries in SQL rather than JPQL: the page is read as scalars, so the EAGER User.roles collection is never
+ * initialized per row, and the WHERE clause only contains the conditions that apply, so MySQL gets a plain range scan
+ * on idx_users_created_id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserDirectoryRepository {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Users older than the cursor (created_at, id), newest first. A null cursor starts from the newest user.
+     */
+    public List<DirectoryRow> findPage(Integer roleId, LocalDateTime afterCreatedAt, UUID afterId, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT u.id, u.email, u.enabled, u.created_at, d.first_name, d.last_name, d.avatar_url
+                FROM users u
+                LEFT JOIN user_details d ON d.user_id = u.id
+                WHERE 1 = 1""");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+
+        if (roleId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM users_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)");
+            parameters.addValue("roleId", roleId);
+        }
+        if (afterCreatedAt != null) {
+            // Expanded instead of a row comparison, which older MySQL versions don't turn into a range scan
+            sql.append(" AND (u.created_at < :createdAt OR (u.created_at = :createdAt AND u.id < :id))");
+            parameters.addValue("createdAt", afterCreatedAt);
+            parameters.addValue("id", UuidV7.toBytes(afterId));
+        }
+        sql.append(" ORDER BY u.created_at DESC, u.id DESC LIMIT :limit");
+
+        return namedParameterJdbcTemplate.query(sql.toString(), parameters, (resultSet, rowNum) -> new DirectoryRow(
+                UuidV7.fromBytes(resultSet.getBytes("id")),
+                resultSet.getString("email"),
+                resultSet.getBoolean("enabled"),
+                resultSet.getObject("created_at", LocalDateTime.class),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getString("avatar_url")));
+    }
+
+    /**
+     * Roles of all the given users in one query, instead of one collection load per user.
+     */
+    public Map<UUID, Set<RoleEnum>> findRoles(Collection<UUID> userIds) {
+        Map<UUID, Set<RoleEnum>> roles = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return roles;
+        }
+
+        List<byte[]> ids = userIds.stream().map(UuidV7::toBytes).toList();
+        namedParameterJdbcTemplate.query("SELECT ur.user_id, r.name FROM users_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id IN (:ids)",
+                Map.of("ids", ids),
+                resultSet -> {
+                    roles.computeIfAbsent(UuidV7.fromBytes(resultSet.getBytes(1)), id -> EnumSet.noneOf(RoleEnum.class))
+                            .add(RoleEnum.valueOf(resultSet.getString(2)));
+                });
+        return roles;
+    }
+}
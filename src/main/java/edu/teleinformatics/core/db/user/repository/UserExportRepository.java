@@ -0,0 +1,68 @@
+package edu.teleinformatics.core.db.user.repository;
+
+import edu.teleinformatics.core.db.user.projection.ExportRow;
+import edu.teleinformatics.core.db.util.UuidV7;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Export query. Each call reads one chunk of users after a (created_at, id) key with a forward-only streaming result
+ * set: Connector/J hands the rows over one by one as they arrive instead of buffering the chunk, and no entity is
+ * created, so nothing accumulates in a persistence context either.
+ */
+@Repository
+public class UserExportRepository {
+    private static final String SELECT = """
+            SELECT u.id, u.email, u.enabled, u.created_at, u.updated_at,
+                   (SELECT GROUP_CONCAT(r.name ORDER BY r.name SEPARATOR '|')
+                    FROM users_roles ur JOIN roles r ON r.id = ur.role_id
+                    WHERE ur.user_id = u.id) AS roles,
+                   d.first_name, d.last_name, d.avatar_url, d.bio, d.updated_at AS profile_updated_at
+            FROM users u
+            LEFT JOIN user_details d ON d.user_id = u.id
+            """;
+    private static final String FIRST_CHUNK = SELECT + "ORDER BY u.created_at, u.id LIMIT ?";
+    // Expanded instead of a row comparison, which older MySQL versions don't turn into a range scan on idx_users_created_id
+    private static final String NEXT_CHUNK = SELECT
+            + "WHERE u.created_at > ? OR (u.created_at = ? AND u.id > ?) ORDER BY u.created_at, u.id LIMIT ?";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public UserExportRepository(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE); // MySQL Connector/J streams rows one by one with this value
+    }
+
+    /**
+     * Passes up to {@code limit} users after the key, oldest first, to {@code consumer}. A null key starts from the
+     * oldest user. Returns the number of rows read.
+     */
+    public int streamChunk(LocalDateTime afterCreatedAt, UUID afterId, int limit, Consumer<ExportRow> consumer) {
+        int[] count = {0};
+        Object[] arguments = afterCreatedAt == null
+                ? new Object[]{limit}
+                : new Object[]{afterCreatedAt, afterCreatedAt, UuidV7.toBytes(afterId), limit};
+
+        streamingJdbcTemplate.query(afterCreatedAt == null ? FIRST_CHUNK : NEXT_CHUNK, resultSet -> {
+            consumer.accept(new ExportRow(
+                    UuidV7.fromBytes(resultSet.getBytes("id")),
+                    resultSet.getString("email"),
+                    resultSet.getBoolean("enabled"),
+                    resultSet.getObject("created_at", LocalDateTime.class),
+                    resultSet.getObject("updated_at", LocalDateTime.class),
+                    resultSet.getString("roles"),
+                    resultSet.getString("first_name"),
+                    resultSet.getString("last_name"),
+                    resultSet.getString("avatar_url"),
+                    resultSet.getString("bio"),
+                    resultSet.getObject("profile_updated_at", LocalDateTime.class)));
+            count[0]++;
+        }, arguments);
+        return count[0];
+    }
+}
@@ -1,12 +1,19 @@
 package edu.teleinformatics.core.db.user.repository;
 
 import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.db.user.projection.AuthUser;
+import edu.teleinformatics.core.db.user.projection.AuthUserRow;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
@@ -15,6 +22,26 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmail(@NotNull @NotBlank String email);
 
-    Optional<User> findAuthUserById(@NotNull @NotBlank UUID id);
-    Optional<User> findAuthUserByEmail(@NotNull @NotBlank String email);
+    // Authentication lookups: one joined statement returning scalars (a row per role), folded into an immutable AuthUser.
+    // Declared queries get no transaction of their own, so they're marked read-only to be served by a replica.
+    @Transactional(readOnly = true)
+    @Query("select new edu.teleinformatics.core.db.user.projection.AuthUserRow(u.id, u.email, u.password, u.enabled, r.name) " +
+            "from User u left join u.roles r where u.id = :id")
+    List<AuthUserRow> findAuthRowsById(@NotNull @Param("id") UUID id);
+
+    @Transactional(readOnly = true)
+    @Query("select new edu.teleinformatics.core.db.user.projection.AuthUserRow(u.id, u.email, u.password, u.enabled, r.name) " +
+            "from User u left join u.roles r where u.email = :email")
+    List<AuthUserRow> findAuthRowsByEmail(@NotNull @NotBlank @Param("email") String email);
+
+    default Optional<AuthUser> findAuthUserById(@NotNull UUID id) {
+        return AuthUser.fromRows(findAuthRowsById(id));
+    }
+
+    default Optional<AuthUser> findAuthUserByEmail(@NotNull @NotBlank String email) {
+        return AuthUser.fromRows(findAuthRowsByEmail(email));
+    }
+
+    @Query("select u.id from User u where u.enabled = false")
+    Set<UUID> findDisabledUserIds();
 }
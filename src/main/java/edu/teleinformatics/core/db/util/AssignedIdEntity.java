@@ -0,0 +1,52 @@
+package edu.teleinformatics.core.db.util;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+/**
+ * Base of the entities whose UuidV7 id is assigned on construction, stored as BINARY(16). Since the id is never null,
+ * Spring Data can't use it to tell a new entity from a detached one; the entity tracks whether it was loaded or
+ * persisted instead, so save() runs a plain INSERT rather than a SELECT followed by a merge.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity implements Persistable<UUID> {
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
+
+    @Transient
+    private boolean persisted;
+
+    protected AssignedIdEntity() { // For Hibernate, which sets the id of loaded entities itself
+    }
+
+    protected AssignedIdEntity(UUID id) {
+        this.id = id;
+    }
+
+    @Override
+    public UUID getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,31 @@
+package edu.teleinformatics.core.directory.controller;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.directory.dto.DirectoryPage;
+import edu.teleinformatics.core.directory.service.UserDirectoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR')")
+public class UserDirectoryController {
+    private final UserDirectoryService userDirectoryService;
+
+    @GetMapping
+    @Operation(summary = "Browse users", description = "Users with their profile and roles, newest first, optionally filtered by role. Pass the nextCursor of a page to get the following one")
+    public ResponseEntity<DirectoryPage> findUsers(@RequestParam(required = false) RoleEnum role,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + UserDirectoryService.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(userDirectoryService.findPage(role, cursor, limit));
+    }
+}
@@ -0,0 +1,18 @@
+package edu.teleinformatics.core.directory.dto;
+
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+public record DirectoryEntry(
+        UUID id,
+        String email,
+        boolean enabled,
+        LocalDateTime createdAt,
+        String firstName,
+        String lastName,
+        String avatarUrl,
+        Set<RoleEnum> roles) {
+}
@@ -0,0 +1,12 @@
+package edu.teleinformatics.core.directory.dto;
+
+import java.util.List;
+
+/**
+ * One page of the directory.
+ *
+ * @param items      Users of the page, newest first
+ * @param nextCursor Opaque cursor of the next page, null on the last page
+ */
+public record DirectoryPage(List<DirectoryEntry> items, String nextCursor) {
+}
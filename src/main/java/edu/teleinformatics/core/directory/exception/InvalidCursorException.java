@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.directory.exception;
+
+public class InvalidCursorException extends RuntimeException {
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,90 @@
+package edu.teleinformatics.core.directory.service;
+
+import edu.teleinformatics.core.db.user.entity.Role;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.user.exception.RoleNotFoundException;
+import edu.teleinformatics.core.db.user.projection.DirectoryRow;
+import edu.teleinformatics.core.db.user.repository.RoleRepository;
+import edu.teleinformatics.core.db.user.repository.UserDirectoryRepository;
+import edu.teleinformatics.core.directory.dto.DirectoryEntry;
+import edu.teleinformatics.core.directory.dto.DirectoryPage;
+import edu.teleinformatics.core.directory.exception.InvalidCursorException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Admin user directory with keyset pagination. A page is "the next {@code limit} users older than the cursor", read
+ * from idx_users_created_id starting at the cursor, so its cost doesn't depend on how many pages came before it.
+ * Cursors are the (created_at, id) of the last user of a page, encoded so clients treat them as opaque.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryService {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+    private static final int CURSOR_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    private final UserDirectoryRepository userDirectoryRepository;
+    private final RoleRepository roleRepository;
+
+    @Transactional(readOnly = true) // Both queries see the same snapshot, on a replica when routing is enabled
+    public DirectoryPage findPage(RoleEnum role, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_LIMIT);
+        Integer roleId = role == null ? null : roleRepository.findByName(role)
+                .map(Role::getId)
+                .orElseThrow(() -> new RoleNotFoundException("Role not found: " + role));
+
+        Cursor after = cursor == null || cursor.isBlank() ? null : decode(cursor);
+        List<DirectoryRow> rows = userDirectoryRepository.findPage(roleId,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), pageSize + 1); // One extra row tells whether there is a next page
+
+        boolean hasNext = rows.size() > pageSize;
+        List<DirectoryRow> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        Map<UUID, Set<RoleEnum>> roles = userDirectoryRepository.findRoles(page.stream().map(DirectoryRow::id).toList());
+        List<DirectoryEntry> items = page.stream()
+                .map(row -> new DirectoryEntry(row.id(), row.email(), row.enabled(), row.createdAt(), row.firstName(), row.lastName(),
+                        row.avatarUrl(), roles.getOrDefault(row.id(), Set.of())))
+                .toList();
+
+        DirectoryRow last = page.isEmpty() ? null : page.getLast();
+        return new DirectoryPage(items, hasNext ? encode(new Cursor(last.createdAt(), last.id())) : null);
+    }
+
+    private static String encode(Cursor cursor) {
+        ByteBuffer buffer = ByteBuffer.allocate(CURSOR_BYTES)
+                .putLong(cursor.createdAt().toEpochSecond(ZoneOffset.UTC)) // created_at is read and bound back as the same local value
+                .putInt(cursor.createdAt().getNano())
+                .putLong(cursor.id().getMostSignificantBits())
+                .putLong(cursor.id().getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+            if (buffer.remaining() != CURSOR_BYTES) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            return new Cursor(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, UUID id) {
+    }
+}
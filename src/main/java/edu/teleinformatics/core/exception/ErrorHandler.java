@@ -20,10 +20,17 @@ public enum ErrorHandler {
     // AUTH
     USER_ALREADY_EXISTS("AUTH-001", "The email address is already in use", HttpStatus.CONFLICT),
     AUTH_FAILED("AUTH-002", "Authentication failed", HttpStatus.UNAUTHORIZED),
+    AUTH_BUSY("AUTH-003", "Too many authentication requests, try again later", HttpStatus.TOO_MANY_REQUESTS),
+    REFRESH_TOKEN_INVALID("AUTH-004", "The refresh token is invalid or expired", HttpStatus.UNAUTHORIZED),
+    AUTH_THROTTLED("AUTH-005", "Too many attempts, try again later", HttpStatus.TOO_MANY_REQUESTS),
 
     // DB / NOT FOUND
     USER_NOT_FOUND("DB-001", "The requested user does not exist", HttpStatus.NOT_FOUND),
-    ROLE_NOT_FOUND("DB-002", "The requested role was not found", HttpStatus.NOT_FOUND);
+    ROLE_NOT_FOUND("DB-002", "The requested role was not found", HttpStatus.NOT_FOUND),
+
+    // PROFILE
+    PROFILE_VERSION_MISMATCH("PROFILE-001", "The profile was modified since it was read", HttpStatus.PRECONDITION_FAILED),
+    PROFILE_VERSION_REQUIRED("PROFILE-002", "The If-Match header is required to update the profile", HttpStatus.PRECONDITION_REQUIRED);
 
     private final String code;
     private final String defaultMessage;
@@ -1,13 +1,25 @@
 package edu.teleinformatics.core.exception;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import edu.teleinformatics.core.auth.exception.AuthThrottledException;
+import edu.teleinformatics.core.auth.exception.PasswordHashingRejectedException;
+import edu.teleinformatics.core.auth.exception.RefreshTokenInvalidException;
 import edu.teleinformatics.core.auth.exception.UserAlreadyExistsException;
 import edu.teleinformatics.core.db.user.exception.RoleNotFoundException;
+import edu.teleinformatics.core.directory.exception.InvalidCursorException;
+import edu.teleinformatics.core.exception.fingerprint.service.ErrorFingerprintStore;
+import edu.teleinformatics.core.exception.logging.ErrorLogSampler;
+import edu.teleinformatics.core.profile.exception.ProfileVersionMismatchException;
+import edu.teleinformatics.core.profile.exception.ProfileVersionRequiredException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,9 +28,9 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.Base64;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 /**
@@ -27,14 +39,18 @@ import java.util.stream.Collectors;
 @Slf4j
 @RestControllerAdvice
 @Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+    private final ErrorFingerprintStore errorFingerprintStore;
+    private final ErrorLogSampler errorLogSampler;
 
     /**
      * Standardized error response for the API. It contains the following fields:
      *
      * @param message   Detailed message about the error
      * @param errorCode A custom error code for the specific error
-     * @param hash      The stack trace of the exception, which can be included for debugging purposes. This field is optional and can be omitted in production environments to avoid exposing sensitive information.
+     * @param hash      Fingerprint of an unexpected error, an administrator gets its stack trace from GET /api/admin/errors/{hash}. Only present on internal errors.
      */
     @JsonInclude(JsonInclude.Include.NON_NULL)
     public record ApiErrorResponse(
@@ -52,28 +68,48 @@ public class GlobalExceptionHandler {
         // Extract error messages from the validation errors and join them into a single string. Each error message will be in the format "field: error message". For example, if the "email" field is invalid, the error message will be "email: must not be blank".
         String errorMessage = ex.getBindingResult().getFieldErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.joining("; "));
 
-        logException(ex, request, errorMessage, ErrorHandler.INVALID_INPUT.getCode());
+        logException(ex, request, errorMessage, ErrorHandler.INVALID_INPUT);
 
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiErrorResponse(errorMessage, ErrorHandler.INVALID_INPUT.getCode()));
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex, HttpServletRequest request) {
+        // A query or path parameter that doesn't convert, e.g. ?format=xml or ?role=ROLE_ROOT. Enums list their values.
+        Class<?> requiredType = ex.getRequiredType();
+        String errorMessage = requiredType != null && requiredType.isEnum()
+                ? ex.getName() + ": must be one of " + Arrays.stream(requiredType.getEnumConstants()).map(String::valueOf).collect(Collectors.joining(", "))
+                : ex.getName() + ": invalid value";
+
+        logException(ex, request, errorMessage, ErrorHandler.INVALID_INPUT);
+
+        return ResponseEntity.status(ErrorHandler.INVALID_INPUT.getHttpStatus()).body(new ApiErrorResponse(errorMessage, ErrorHandler.INVALID_INPUT.getCode()));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidCursorException(InvalidCursorException ex, HttpServletRequest request) {
+        logException(ex, request, ex.getMessage(), ErrorHandler.INVALID_INPUT);
+
+        return ResponseEntity.status(ErrorHandler.INVALID_INPUT.getHttpStatus()).body(new ApiErrorResponse(ex.getMessage(), ErrorHandler.INVALID_INPUT.getCode()));
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ApiErrorResponse> handleAuthenticationException(AuthenticationException ex, HttpServletRequest request) {
-        logException(ex, request, ex.getMessage(), ErrorHandler.AUTH_FAILED.getCode());
+        logException(ex, request, ex.getMessage(), ErrorHandler.AUTH_FAILED);
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiErrorResponse(ex.getMessage(), ErrorHandler.AUTH_FAILED.getCode()));
     }
 
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleNotFoundException(NotFoundException ex, HttpServletRequest request) {
-        logException(ex, request, ex.getMessage(), ErrorHandler.NOT_FOUND_GENERIC.getCode());
+        logException(ex, request, ex.getMessage(), ErrorHandler.NOT_FOUND_GENERIC);
 
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ApiErrorResponse(ex.getMessage(), ErrorHandler.NOT_FOUND_GENERIC.getCode()));
     }
 
     @ExceptionHandler(RoleNotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleRoleNotFoundException(RoleNotFoundException ex, HttpServletRequest request) {
-        logException(ex, request, ErrorHandler.ROLE_NOT_FOUND.getDefaultMessage(), ErrorHandler.ROLE_NOT_FOUND.getCode());
+        logException(ex, request, ErrorHandler.ROLE_NOT_FOUND.getDefaultMessage(), ErrorHandler.ROLE_NOT_FOUND);
 
         return ResponseEntity.status(ErrorHandler.ROLE_NOT_FOUND.getHttpStatus()).body(new ApiErrorResponse(ex.getMessage(), ErrorHandler.ROLE_NOT_FOUND.getCode()));
     }
@@ -81,67 +117,168 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(UserAlreadyExistsException.class)
     public ResponseEntity<ApiErrorResponse> handleUserAlreadyExistsException(UserAlreadyExistsException ex, HttpServletRequest request) {
-        logException(ex, request, ErrorHandler.USER_ALREADY_EXISTS.getDefaultMessage(), ErrorHandler.USER_ALREADY_EXISTS.getCode());
+        logException(ex, request, ErrorHandler.USER_ALREADY_EXISTS.getDefaultMessage(), ErrorHandler.USER_ALREADY_EXISTS);
 
         return ResponseEntity.status(ErrorHandler.USER_ALREADY_EXISTS.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.USER_ALREADY_EXISTS.getDefaultMessage(), ErrorHandler.USER_ALREADY_EXISTS.getCode()));
     }
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handlePasswordHashingRejectedException(PasswordHashingRejectedException ex, HttpServletRequest request) {
+        logException(ex, request, ErrorHandler.AUTH_BUSY.getDefaultMessage(), ErrorHandler.AUTH_BUSY);
+
+        return ResponseEntity.status(ErrorHandler.AUTH_BUSY.getHttpStatus()).header(HttpHeaders.RETRY_AFTER, "1").body(new ApiErrorResponse(ErrorHandler.AUTH_BUSY.getDefaultMessage(), ErrorHandler.AUTH_BUSY.getCode()));
+    }
+
+    @ExceptionHandler(AuthThrottledException.class)
+    public ResponseEntity<ApiErrorResponse> handleAuthThrottledException(AuthThrottledException ex, HttpServletRequest request) {
+        logException(ex, request, ex.getMessage(), ErrorHandler.AUTH_THROTTLED);
+
+        return ResponseEntity.status(ErrorHandler.AUTH_THROTTLED.getHttpStatus()).header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds())).body(new ApiErrorResponse(ErrorHandler.AUTH_THROTTLED.getDefaultMessage(), ErrorHandler.AUTH_THROTTLED.getCode()));
+    }
+
+    @ExceptionHandler(RefreshTokenInvalidException.class)
+    public ResponseEntity<ApiErrorResponse> handleRefreshTokenInvalidException(RefreshTokenInvalidException ex, HttpServletRequest request) {
+        logException(ex, request, ex.getMessage(), ErrorHandler.REFRESH_TOKEN_INVALID);
+
+        // The reason (unknown, expired, reused) is only logged, the client gets the same answer for all of them
+        return ResponseEntity.status(ErrorHandler.REFRESH_TOKEN_INVALID.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.REFRESH_TOKEN_INVALID.getDefaultMessage(), ErrorHandler.REFRESH_TOKEN_INVALID.getCode()));
+    }
+
+    @ExceptionHandler(ProfileVersionMismatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleProfileVersionMismatchException(ProfileVersionMismatchException ex, HttpServletRequest request) {
+        logException(ex, request, ex.getMessage(), ErrorHandler.PROFILE_VERSION_MISMATCH);
+
+        // The current ETag lets the client reload the profile and retry the update
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ErrorHandler.PROFILE_VERSION_MISMATCH.getHttpStatus());
+        if (ex.getCurrentEtag() != null) {
+            response.eTag(ex.getCurrentEtag());
+        }
+        return response.body(new ApiErrorResponse(ex.getMessage(), ErrorHandler.PROFILE_VERSION_MISMATCH.getCode()));
+    }
+
+    @ExceptionHandler(ProfileVersionRequiredException.class)
+    public ResponseEntity<ApiErrorResponse> handleProfileVersionRequiredException(ProfileVersionRequiredException ex, HttpServletRequest request) {
+        logException(ex, request, ErrorHandler.PROFILE_VERSION_REQUIRED.getDefaultMessage(), ErrorHandler.PROFILE_VERSION_REQUIRED);
+
+        return ResponseEntity.status(ErrorHandler.PROFILE_VERSION_REQUIRED.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.PROFILE_VERSION_REQUIRED.getDefaultMessage(), ErrorHandler.PROFILE_VERSION_REQUIRED.getCode()));
+    }
+
     @ExceptionHandler(UsernameNotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleUsernameNotFoundException(UsernameNotFoundException ex, HttpServletRequest request) {
-        logException(ex, request, ErrorHandler.USER_NOT_FOUND.getDefaultMessage(), ErrorHandler.USER_NOT_FOUND.getCode());
+        logException(ex, request, ErrorHandler.USER_NOT_FOUND.getDefaultMessage(), ErrorHandler.USER_NOT_FOUND);
 
         return ResponseEntity.status(ErrorHandler.USER_NOT_FOUND.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.USER_NOT_FOUND.getDefaultMessage(), ErrorHandler.USER_NOT_FOUND.getCode()));
     }
 
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ApiErrorResponse> handleBadCredentialsException(BadCredentialsException ex, HttpServletRequest request) {
-        logException(ex, request, ErrorHandler.INVALID_CREDENTIALS.getDefaultMessage(), ErrorHandler.INVALID_CREDENTIALS.getCode());
+        logException(ex, request, ErrorHandler.INVALID_CREDENTIALS.getDefaultMessage(), ErrorHandler.INVALID_CREDENTIALS);
 
         return ResponseEntity.status(ErrorHandler.INVALID_CREDENTIALS.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.INVALID_CREDENTIALS.getDefaultMessage(), ErrorHandler.INVALID_CREDENTIALS.getCode()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleGenericException(Exception ex, HttpServletRequest request) {
-        // Convert stack trace into a string.
-        StringWriter sw = new StringWriter();
-        ex.printStackTrace(new PrintWriter(sw));
-        String stackTrace = sw.toString();
+        ErrorFingerprintStore.Occurrence occurrence = errorFingerprintStore.record(ex);
 
-        // Convert stack trace string into base64
-        String base64 = Base64.getEncoder().encodeToString(stackTrace.getBytes());
-
-        logException(ex, request, ErrorHandler.INTERNAL_ERROR.getDefaultMessage(), ErrorHandler.INTERNAL_ERROR.getCode());
+        if (occurrence.first()) {
+            logUnexpectedException(ex, request, occurrence);
+        } else {
+            logRepeatedException(ex, request, occurrence);
+        }
 
-        return ResponseEntity.status(ErrorHandler.INTERNAL_ERROR.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.INTERNAL_ERROR.getDefaultMessage(), ErrorHandler.INTERNAL_ERROR.getCode(), base64));
+        return ResponseEntity.status(ErrorHandler.INTERNAL_ERROR.getHttpStatus()).body(new ApiErrorResponse(ErrorHandler.INTERNAL_ERROR.getDefaultMessage(), ErrorHandler.INTERNAL_ERROR.getCode(), occurrence.id()));
     }
 
     /**
-     * Logs the exception with relevant information such as the request path, IP address, user agent, and stack trace. This method is called from each exception handler to ensure consistent logging of all exceptions.
+     * Logs a handled exception as one structured line without stack trace: these are expected outcomes (invalid input,
+     * expired tokens, duplicates) whose cause is the request, not the code. Errors are always counted, but only the
+     * occurrences let through by ErrorLogSampler are logged. This method is called from each exception handler.
      *
      * @param ex           The exception to be logged
      * @param request      The HTTP request that caused the exception
      * @param errorMessage A detailed message about the error, which will be included in the log
-     * @param errorCode    A custom error code for the specific error, which will be included in the log
+     * @param error        The ErrorHandler entry returned to the client
+     */
+    private void logException(Exception ex, HttpServletRequest request, String errorMessage, ErrorHandler error) {
+        countError(ex, error.getCode());
+
+        if (!errorLogSampler.shouldLog(error.getCode())) {
+            return;
+        }
+
+        log.atWarn()
+                .addKeyValue("error.code", error.getCode())
+                .addKeyValue("error.type", ex.getClass().getSimpleName())
+                .addKeyValue("http.response.status_code", error.getHttpStatus().value())
+                .addKeyValue("http.request.method", request.getMethod())
+                .addKeyValue("url.path", request.getRequestURI())
+                .addKeyValue("client.address", request.getRemoteAddr())
+                .log("Request failed. ErrorCode: {}, Message: {}, Exception: {}, Request: {} {}, IP: {}",
+                        error.getCode(), errorMessage, ex.getClass().getSimpleName(), request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+    }
+
+    /**
+     * Logs the first occurrence of an unexpected exception with its full stack trace and the request that caused it.
+     * It is never sampled: the fingerprint store makes this happen once per distinct error.
+     *
+     * @param ex         The exception to be logged
+     * @param request    The HTTP request that caused the exception
+     * @param occurrence The fingerprint of the exception
+     */
+    private void logUnexpectedException(Exception ex, HttpServletRequest request, ErrorFingerprintStore.Occurrence occurrence) {
+        countError(ex, ErrorHandler.INTERNAL_ERROR.getCode());
+
+        log.atError()
+                .addKeyValue("error.code", ErrorHandler.INTERNAL_ERROR.getCode())
+                .addKeyValue("error.type", ex.getClass().getName())
+                .addKeyValue("error.fingerprint", occurrence.id())
+                .addKeyValue("http.request.method", request.getMethod())
+                .addKeyValue("url.path", request.getRequestURI())
+                .addKeyValue("client.address", request.getRemoteAddr())
+                .addKeyValue("user_agent.original", request.getHeader("User-Agent"))
+                .setCause(ex)
+                .log("Unexpected exception, fingerprint {}. Request: {} {}, IP: {}", occurrence.id(), request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+    }
+
+    /**
+     * Logs a repeated occurrence of an already fingerprinted error in a single line, subject to sampling. Its stack trace
+     * was logged on the first occurrence and stays available from the fingerprint store.
+     *
+     * @param ex         The exception to be logged
+     * @param request    The HTTP request that caused the exception
+     * @param occurrence The fingerprint of the exception and how many times it has occurred
+     */
+    private void logRepeatedException(Exception ex, HttpServletRequest request, ErrorFingerprintStore.Occurrence occurrence) {
+        countError(ex, ErrorHandler.INTERNAL_ERROR.getCode());
+
+        if (!errorLogSampler.shouldLog(ErrorHandler.INTERNAL_ERROR.getCode())) {
+            return;
+        }
+
+        log.atError()
+                .addKeyValue("error.code", ErrorHandler.INTERNAL_ERROR.getCode())
+                .addKeyValue("error.type", ex.getClass().getName())
+                .addKeyValue("error.fingerprint", occurrence.id())
+                .addKeyValue("error.count", occurrence.count())
+                .addKeyValue("http.request.method", request.getMethod())
+                .addKeyValue("url.path", request.getRequestURI())
+                .log("Repeated exception, fingerprint {}. Count: {}, Exception: {}, Request: {} {}, IP: {}",
+                        occurrence.id(), occurrence.count(), ex.getClass().getSimpleName(), request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+    }
+
+    /**
+     * Counts the error by ErrorHandler code (api.errors), so the outcome mix of each endpoint can be followed over time.
+     *
+     * @param ex        The exception that was handled
+     * @param errorCode The ErrorHandler code returned to the client
      */
-    private void logException(Exception ex, HttpServletRequest request, String errorMessage, String errorCode) {
-        log.error("""
-                        An exception occurred while processing the request:
-                        ErrorCode: {}
-                        Message: {}
-                        Exception: {}
-                        Request: {}
-                        IP: {}
-                        User-Agent: {}
-                        Stacktrace: {}
-                        """,
-                errorCode,
-                errorMessage,
-                ex.getClass().getSimpleName(),
-                request.getMethod(),
-                request.getRequestURI(),
-                request.getRemoteAddr(),
-                request.getHeader("User-Agent"),
-                ex
-        );
+    private void countError(Exception ex, String errorCode) {
+        Counter.builder("api.errors")
+                .description("Error responses by ErrorHandler code")
+                .tag("code", errorCode)
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
     }
 }
@@ -0,0 +1,40 @@
+package edu.teleinformatics.core.exception.fingerprint.controller;
+
+import edu.teleinformatics.core.exception.NotFoundException;
+import edu.teleinformatics.core.exception.fingerprint.dto.ErrorFingerprintDetail;
+import edu.teleinformatics.core.exception.fingerprint.dto.ErrorFingerprintSummary;
+import edu.teleinformatics.core.exception.fingerprint.service.ErrorFingerprintStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/errors")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasRole('ADMIN')")
+public class ErrorFingerprintController {
+    private final ErrorFingerprintStore errorFingerprintStore;
+
+    @GetMapping
+    @Operation(summary = "List error fingerprints", description = "Distinct unexpected errors still in memory, most frequent first")
+    public ResponseEntity<List<ErrorFingerprintSummary>> list() {
+        return ResponseEntity.ok(errorFingerprintStore.list());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get an error fingerprint", description = "Stack trace of the first occurrence of the error with the given hash")
+    public ResponseEntity<ErrorFingerprintDetail> get(@PathVariable String id) {
+        return errorFingerprintStore.find(id)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new NotFoundException("No error with hash " + id + ", it may have been evicted"));
+    }
+}
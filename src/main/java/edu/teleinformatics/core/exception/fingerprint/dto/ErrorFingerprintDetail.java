@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.exception.fingerprint.dto;
+
+/**
+ * A stored fingerprint with the decompressed stack trace of its first occurrence.
+ */
+public record ErrorFingerprintDetail(ErrorFingerprintSummary summary, String stackTrace) {
+}
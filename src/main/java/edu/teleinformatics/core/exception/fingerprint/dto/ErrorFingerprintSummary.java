@@ -0,0 +1,16 @@
+package edu.teleinformatics.core.exception.fingerprint.dto;
+
+import java.time.Instant;
+
+/**
+ * One distinct failure seen since startup.
+ *
+ * @param id        Fingerprint returned to clients in the {@code hash} field of 500 responses
+ * @param exception Class of the outermost exception
+ * @param message   Message of the first occurrence
+ * @param count     Occurrences since the fingerprint was first stored
+ * @param firstSeen When it was first stored
+ * @param lastSeen  Last occurrence
+ */
+public record ErrorFingerprintSummary(String id, String exception, String message, long count, Instant firstSeen, Instant lastSeen) {
+}
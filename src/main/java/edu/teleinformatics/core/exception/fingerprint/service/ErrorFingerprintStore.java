@@ -0,0 +1,200 @@
+package edu.teleinformatics.core.exception.fingerprint.service;
+
+import edu.teleinformatics.core.exception.fingerprint.dto.ErrorFingerprintDetail;
+import edu.teleinformatics.core.exception.fingerprint.dto.ErrorFingerprintSummary;
+import edu.teleinformatics.core.util.Sha256;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps one compressed stack trace per distinct unexpected error. Each error is reduced to a fingerprint computed from
+ * its exception classes and stack frames (not its message, which usually carries ids), so the thousands of identical
+ * failures of an incident share one entry and only bump its counter. At most {@code capacity} fingerprints are kept,
+ * the oldest one is dropped to make room for a new one.
+ */
+@Service
+public class ErrorFingerprintStore {
+    private static final int MAX_CAUSES = 8;
+    private static final int MAX_FRAMES = 64; // Per throwable, deeper frames are framework plumbing shared by every request
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    private final ConcurrentHashMap<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final String[] ring; // Insertion order, used to evict the oldest fingerprint
+    private int ringNext;
+
+    public ErrorFingerprintStore(@Value("${error-fingerprints.capacity:256}") int capacity, MeterRegistry meterRegistry) {
+        this.ring = new String[capacity];
+
+        Gauge.builder("api.errors.fingerprints", fingerprints, ConcurrentHashMap::size)
+                .description("Distinct unexpected errors kept in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records an occurrence of the error. The stack trace is only rendered and compressed the first time a fingerprint
+     * is seen, repeated occurrences cost the fingerprint computation and a counter increment.
+     */
+    public Occurrence record(Throwable error) {
+        String id = fingerprint(error);
+
+        Fingerprint existing = fingerprints.get(id);
+        if (existing != null) {
+            return new Occurrence(id, existing.occurred(), false);
+        }
+
+        Fingerprint created = new Fingerprint(id, error.getClass().getName(), truncate(error.getMessage()), compress(render(error)));
+        synchronized (ring) {
+            existing = fingerprints.putIfAbsent(id, created);
+            if (existing != null) {
+                return new Occurrence(id, existing.occurred(), false); // Another request stored it first
+            }
+
+            String evicted = ring[ringNext];
+            if (evicted != null) {
+                fingerprints.remove(evicted);
+            }
+            ring[ringNext] = id;
+            ringNext = (ringNext + 1) % ring.length;
+        }
+        return new Occurrence(id, created.occurred(), true);
+    }
+
+    public List<ErrorFingerprintSummary> list() {
+        return fingerprints.values().stream()
+                .map(Fingerprint::toSummary)
+                .sorted(Comparator.comparingLong(ErrorFingerprintSummary::count).reversed())
+                .toList();
+    }
+
+    public Optional<ErrorFingerprintDetail> find(String id) {
+        return Optional.ofNullable(fingerprints.get(id))
+                .map(fingerprint -> new ErrorFingerprintDetail(fingerprint.toSummary(), decompress(fingerprint.compressedTrace)));
+    }
+
+    /**
+     * 64-bit hex digest of the exception classes and frames (class, method, line) of the error and its causes.
+     */
+    private static String fingerprint(Throwable error) {
+        MessageDigest digest = Sha256.newDigest();
+
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSES; depth++) {
+            update(digest, current.getClass().getName());
+
+            StackTraceElement[] frames = current.getStackTrace();
+            for (int i = 0; i < Math.min(frames.length, MAX_FRAMES); i++) {
+                update(digest, normalize(frames[i].getClassName()));
+                update(digest, frames[i].getMethodName());
+                update(digest, Integer.toString(frames[i].getLineNumber()));
+            }
+
+            current = current.getCause() == current ? null : current.getCause();
+        }
+
+        return HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), 8));
+    }
+
+    /**
+     * Generated classes (CGLIB subclasses, JDK proxies, reflection accessors) get a new number on every start.
+     */
+    private static String normalize(String className) {
+        if (className.contains("$$") || className.contains("$Proxy") || className.contains("GeneratedMethodAccessor")) {
+            return className.replaceAll("\\d+", "");
+        }
+        return className;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String render(Throwable error) {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        try (PrintWriter writer = new PrintWriter(trace, false, StandardCharsets.UTF_8)) {
+            error.printStackTrace(writer);
+        }
+        return trace.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(String trace) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(trace.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // In-memory streams don't throw
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) + "..." : message;
+    }
+
+    /**
+     * Result of recording an error.
+     *
+     * @param id    Fingerprint of the error
+     * @param count Occurrences so far
+     * @param first Whether this occurrence stored the fingerprint. Decided by the putIfAbsent, not by the count, which
+     *              concurrent occurrences may already have raised past 1
+     */
+    public record Occurrence(String id, long count, boolean first) {
+    }
+
+    private static class Fingerprint {
+        private final String id;
+        private final String exception;
+        private final String message;
+        private final byte[] compressedTrace;
+        private final Instant firstSeen = Instant.now();
+        private final AtomicLong lastSeen = new AtomicLong();
+        private final LongAdder count = new LongAdder();
+
+        Fingerprint(String id, String exception, String message, byte[] compressedTrace) {
+            this.id = id;
+            this.exception = exception;
+            this.message = message;
+            this.compressedTrace = compressedTrace;
+        }
+
+        long occurred() {
+            count.increment();
+            lastSeen.set(System.currentTimeMillis());
+            return count.sum();
+        }
+
+        ErrorFingerprintSummary toSummary() {
+            return new ErrorFingerprintSummary(id, exception, message, count.sum(), firstSeen, Instant.ofEpochMilli(lastSeen.get()));
+        }
+    }
+}
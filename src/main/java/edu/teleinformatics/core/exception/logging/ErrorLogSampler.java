@@ -0,0 +1,76 @@
+package edu.teleinformatics.core.exception.logging;
+
+import edu.teleinformatics.core.config.ErrorLoggingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which handled errors are logged, so a burst of identical errors (an expired-token storm, a client retrying
+ * invalid input) costs a counter increment per request instead of a log line. Windows are closed by a scheduled task,
+ * which also logs one summary line per code with the number of errors suppressed in the window.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ErrorLogSampler {
+    private final ErrorLoggingProperties errorLoggingProperties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Whether this occurrence of the error code should be logged. Counts it as suppressed otherwise.
+     */
+    public boolean shouldLog(String errorCode) {
+        ErrorLoggingProperties.Policy policy = errorLoggingProperties.policyFor(errorCode);
+        Window window = windows.computeIfAbsent(errorCode, this::newWindow);
+
+        boolean sampled = policy.getSampleRate() >= 1.0 || ThreadLocalRandom.current().nextDouble() < policy.getSampleRate();
+        if (sampled && window.logged.incrementAndGet() <= policy.getMaxPerWindow()) {
+            return true;
+        }
+
+        window.suppressed.increment();
+        window.suppressedCounter.increment();
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${error-logging.window:PT10S}")
+    public void closeWindow() {
+        windows.forEach((errorCode, window) -> {
+            window.logged.set(0);
+            long suppressed = window.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                log.atWarn()
+                        .addKeyValue("error.code", errorCode)
+                        .addKeyValue("error.suppressed", suppressed)
+                        .log("{} similar errors suppressed. ErrorCode: {}, Window: {}", suppressed, errorCode, errorLoggingProperties.getWindow());
+            }
+        });
+    }
+
+    private Window newWindow(String errorCode) {
+        return new Window(Counter.builder("api.errors.log.suppressed")
+                .description("Handled errors counted but not logged because of sampling or the per-window limit")
+                .tag("code", errorCode)
+                .register(meterRegistry));
+    }
+
+    private static class Window {
+        private final AtomicInteger logged = new AtomicInteger();
+        private final LongAdder suppressed = new LongAdder();
+        private final Counter suppressedCounter;
+
+        Window(Counter suppressedCounter) {
+            this.suppressedCounter = suppressedCounter;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.teleinformatics.core.export.controller;
+
+import edu.teleinformatics.core.export.dto.ExportFormat;
+import edu.teleinformatics.core.export.service.UserExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+public class UserExportController {
+    private static final int GZIP_BUFFER = 16 * 1024;
+
+    private final UserExportService userExportService;
+
+    // Writes to the servlet response directly, like the roster import: the export runs as long as the download does,
+    // and rows go out as they're read instead of being collected into a response body first.
+    @GetMapping("/users")
+    @Operation(summary = "Export users", description = "Streams every user with its profile and roles as CSV or NDJSON, gzip-compressed when the client accepts it")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportUsers(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("users-" + LocalDate.now() + "." + format.getExtension())
+                .build().toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            userExportService.export(format, response.getOutputStream());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        // Sync flush: every flush of the export (one per chunk) emits the compressed data so far instead of holding it back.
+        // Closing writes the gzip trailer and frees the native zlib memory of the Deflater right away, not on a later GC.
+        try (GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER, true)) {
+            userExportService.export(format, output);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean refused = parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,16 @@
+package edu.teleinformatics.core.export.dto;
+
+import edu.teleinformatics.core.roster.dto.RosterFormat;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    CSV(RosterFormat.TEXT_CSV_VALUE, "csv"), // RFC 4180 with a header line, roles joined by '|'
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"); // One JSON object per line, roles as an array
+
+    private final String contentType;
+    private final String extension;
+}
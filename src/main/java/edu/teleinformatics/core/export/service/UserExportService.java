@@ -0,0 +1,202 @@
+package edu.teleinformatics.core.export.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.teleinformatics.core.config.UserExportProperties;
+import edu.teleinformatics.core.db.user.projection.ExportRow;
+import edu.teleinformatics.core.db.user.repository.UserExportRepository;
+import edu.teleinformatics.core.export.dto.ExportFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Streams every user with its profile and roles as CSV or NDJSON. Memory use doesn't depend on the number of users:
+ * each chunk is read with a streaming cursor and every row is written out as soon as it arrives, and only the key of
+ * the last row is carried to the next chunk. Each chunk runs in its own read-only transaction (on a replica when
+ * routing is enabled), so writers are never held behind the export and a slow download only delays one chunk.
+ * The export is not a point-in-time snapshot: users changed while it runs may appear with either version.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+    private static final String CSV_HEADER = "id,email,enabled,created_at,updated_at,roles,first_name,last_name,avatar_url,bio,profile_updated_at";
+    private static final int WRITER_BUFFER = 16 * 1024;
+
+    private final UserExportRepository userExportRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserExportProperties userExportProperties;
+    private final Counter rowsCounter;
+
+    public UserExportService(UserExportRepository userExportRepository, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, UserExportProperties userExportProperties, MeterRegistry meterRegistry) {
+        this.userExportRepository = userExportRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.userExportProperties = userExportProperties;
+        this.rowsCounter = Counter.builder("users.export.rows")
+                .description("Users written by the admin export")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes the export to {@code output} and flushes it after every chunk. The stream is not closed.
+     */
+    public void export(ExportFormat format, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITER_BUFFER);
+        JsonGenerator generator = null;
+        if (format == ExportFormat.NDJSON) {
+            generator = objectMapper.getFactory().createGenerator(writer);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // Objects are separated by the newline written after each one
+        } else {
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+
+        RowWriter rowWriter = new RowWriter(format, writer, generator);
+        int chunkSize = userExportProperties.getChunkSize();
+        long total = 0;
+        int read;
+        do {
+            read = readOnlyTransactionTemplate.execute(status ->
+                    userExportRepository.streamChunk(rowWriter.lastCreatedAt, rowWriter.lastId, chunkSize, rowWriter));
+            total += read;
+            rowsCounter.increment(read);
+
+            if (generator != null) {
+                generator.flush();
+            }
+            writer.flush(); // Also pushes a sync-flushed gzip block, so the client receives each chunk as it's read
+        } while (read == chunkSize);
+
+        log.info("Users exported. Format: {}, Rows: {}, Time: {} ms", format, total, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Writes each row as it's read and remembers the key of the last one.
+     */
+    private static final class RowWriter implements Consumer<ExportRow> {
+        private final ExportFormat format;
+        private final Writer writer;
+        private final JsonGenerator generator;
+        private LocalDateTime lastCreatedAt;
+        private UUID lastId;
+
+        private RowWriter(ExportFormat format, Writer writer, JsonGenerator generator) {
+            this.format = format;
+            this.writer = writer;
+            this.generator = generator;
+        }
+
+        @Override
+        public void accept(ExportRow row) {
+            try {
+                if (format == ExportFormat.NDJSON) {
+                    writeJson(row);
+                } else {
+                    writeCsv(row);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // The client went away, the exception ends the chunk query and the export
+            }
+            lastCreatedAt = row.createdAt();
+            lastId = row.id();
+        }
+
+        private void writeCsv(ExportRow row) throws IOException {
+            writer.write(row.id().toString());
+            writer.write(',');
+            writeCsvField(row.email());
+            writer.write(',');
+            writer.write(Boolean.toString(row.enabled()));
+            writer.write(',');
+            writeCsvField(format(row.createdAt()));
+            writer.write(',');
+            writeCsvField(format(row.updatedAt()));
+            writer.write(',');
+            writeCsvField(row.roles());
+            writer.write(',');
+            writeCsvField(row.firstName());
+            writer.write(',');
+            writeCsvField(row.lastName());
+            writer.write(',');
+            writeCsvField(row.avatarUrl());
+            writer.write(',');
+            writeCsvField(row.bio());
+            writer.write(',');
+            writeCsvField(format(row.profileUpdatedAt()));
+            writer.write("\r\n");
+        }
+
+        private void writeCsvField(String value) throws IOException {
+            if (value == null) {
+                return; // Empty field
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        private void writeJson(ExportRow row) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("id", row.id().toString());
+            generator.writeStringField("email", row.email());
+            generator.writeBooleanField("enabled", row.enabled());
+            generator.writeStringField("createdAt", format(row.createdAt()));
+            generator.writeStringField("updatedAt", format(row.updatedAt()));
+            generator.writeArrayFieldStart("roles");
+            if (row.roles() != null) {
+                for (String role : row.roles().split("\\|")) {
+                    generator.writeString(role);
+                }
+            }
+            generator.writeEndArray();
+            generator.writeStringField("firstName", row.firstName());
+            generator.writeStringField("lastName", row.lastName());
+            generator.writeStringField("avatarUrl", row.avatarUrl());
+            generator.writeStringField("bio", row.bio());
+            generator.writeStringField("profileUpdatedAt", format(row.profileUpdatedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private static String format(LocalDateTime value) {
+            return value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value);
+        }
+    }
+}
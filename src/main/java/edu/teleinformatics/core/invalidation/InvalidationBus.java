@@ -0,0 +1,238 @@
+package edu.teleinformatics.core.invalidation;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import edu.teleinformatics.core.config.InvalidationBusProperties;
+import edu.teleinformatics.core.db.outbox.projection.OutboxEvent;
+import edu.teleinformatics.core.db.outbox.repository.InvalidationOutboxRepository;
+import edu.teleinformatics.core.db.user.cache.UserRolesCacheEvictor;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import edu.teleinformatics.core.search.index.UserSearchIndexListener;
+import edu.teleinformatics.core.security.CustomUserDetailsService;
+import edu.teleinformatics.core.security.DisabledUserRegistry;
+import edu.teleinformatics.core.security.jwt.RevokedTokenRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading side of the invalidation bus. Every instance tails invalidation_outbox from the last id it read and runs the
+ * same invalidations the AFTER_COMMIT listeners run on the instance that made the change, which skips its own rows.
+ * The start position is read before the in-memory state loads, so a change committed in between is applied rather than
+ * lost.
+ * <p>
+ * Ids are allocated on insert but become visible on commit, so a reader can see id n+1 before n. Every id skipped over
+ * is kept as missing and looked up again on each poll, until it shows up or the gap grace passes and it is taken as
+ * rolled back (or never allocated, with several primaries). Rows are applied as they're read, out of id order across
+ * subjects; two changes to the same user lock its row, so the second one's id is only allocated after the first commits.
+ */
+@Component
+@Slf4j
+public class InvalidationBus {
+    private static final int COMPACTION_BATCH = 10_000;
+    private static final int MAX_MISSING_IDS = 1_000; // Far more than the transactions in flight at once
+
+    private final InvalidationOutboxRepository invalidationOutboxRepository;
+    private final InvalidationOutbox invalidationOutbox;
+    private final InvalidationBusProperties properties;
+    private final CustomUserDetailsService customUserDetailsService;
+    private final DisabledUserRegistry disabledUserRegistry;
+    private final UserRolesCacheEvictor userRolesCacheEvictor;
+    private final UserSearchIndexListener userSearchIndexListener;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final Ticker ticker;
+
+    private final Timer lagTimer;
+    private final Map<InvalidationKind, Counter> appliedCounters = new EnumMap<>(InvalidationKind.class);
+    private final Counter skippedGapsCounter;
+
+    // Only touched by start() and the poll, which @Scheduled never runs concurrently with itself
+    private long position = -1; // Highest id read, -1 until start() reads the newest one
+    private final Map<Long, Long> missingIds = new LinkedHashMap<>(); // Id -> ticker nanos it was found missing, oldest first
+
+    @Autowired
+    public InvalidationBus(InvalidationOutboxRepository invalidationOutboxRepository, InvalidationOutbox invalidationOutbox,
+                           InvalidationBusProperties properties, CustomUserDetailsService customUserDetailsService,
+                           DisabledUserRegistry disabledUserRegistry, UserRolesCacheEvictor userRolesCacheEvictor,
+                           UserSearchIndexListener userSearchIndexListener, RevokedTokenRegistry revokedTokenRegistry,
+                           MeterRegistry meterRegistry) {
+        this(invalidationOutboxRepository, invalidationOutbox, properties, customUserDetailsService, disabledUserRegistry,
+                userRolesCacheEvictor, userSearchIndexListener, revokedTokenRegistry, meterRegistry, Ticker.systemTicker());
+    }
+
+    InvalidationBus(InvalidationOutboxRepository invalidationOutboxRepository, InvalidationOutbox invalidationOutbox,
+                    InvalidationBusProperties properties, CustomUserDetailsService customUserDetailsService,
+                    DisabledUserRegistry disabledUserRegistry, UserRolesCacheEvictor userRolesCacheEvictor,
+                    UserSearchIndexListener userSearchIndexListener, RevokedTokenRegistry revokedTokenRegistry,
+                    MeterRegistry meterRegistry, Ticker ticker) {
+        this.invalidationOutboxRepository = invalidationOutboxRepository;
+        this.invalidationOutbox = invalidationOutbox;
+        this.properties = properties;
+        this.customUserDetailsService = customUserDetailsService;
+        this.disabledUserRegistry = disabledUserRegistry;
+        this.userRolesCacheEvictor = userRolesCacheEvictor;
+        this.userSearchIndexListener = userSearchIndexListener;
+        this.revokedTokenRegistry = revokedTokenRegistry;
+        this.ticker = ticker;
+
+        this.lagTimer = Timer.builder("invalidation.bus.lag")
+                .description("Time from the commit of a change on another instance until this instance applied it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (InvalidationKind kind : InvalidationKind.values()) {
+            appliedCounters.put(kind, Counter.builder("invalidation.bus.applied")
+                    .description("Invalidations received from other instances and applied locally")
+                    .tag("kind", kind.name())
+                    .register(meterRegistry));
+        }
+        this.skippedGapsCounter = Counter.builder("invalidation.bus.gaps.skipped")
+                .description("Outbox ids given up on after the gap grace: rolled back transactions, or ids another primary never used")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads the start position while the beans are created: before RevokedTokenRegistry and UserSearchIndex load on
+     * ApplicationReadyEvent and before the first DisabledUserRegistry refresh. The ids absent from the last gap grace
+     * are taken as missing, since they may belong to transactions that commit after those loads.
+     */
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            long maxId = invalidationOutboxRepository.findMaxId();
+            long graceSeconds = Math.max(1, properties.getGapGrace().toSeconds());
+            long floor = Math.max(invalidationOutboxRepository.findNewestIdOlderThan(graceSeconds), maxId - MAX_MISSING_IDS);
+
+            long now = ticker.read();
+            long previous = Math.max(floor, 0);
+            for (long id : invalidationOutboxRepository.findIdsBetween(previous, maxId)) {
+                markMissing(previous, id, now);
+                previous = id;
+            }
+            position = maxId;
+            log.info("Invalidation bus started. Node: {}, From id: {}, Missing ids: {}", invalidationOutbox.getNodeId(), position, missingIds.size());
+        } catch (DataAccessException e) {
+            // The first poll tries again, at the cost of changes committed between the state loads and that poll
+            log.warn("Could not read the invalidation outbox position. Reason: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation-bus.poll-interval:PT0.5S}")
+    public void poll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (position < 0) {
+            start();
+            return;
+        }
+
+        try {
+            long now = ticker.read();
+            if (!missingIds.isEmpty()) {
+                for (OutboxEvent event : invalidationOutboxRepository.findByIds(missingIds.keySet())) {
+                    missingIds.remove(event.id());
+                    deliver(event);
+                }
+                expireMissingIds(now);
+            }
+
+            for (OutboxEvent event : invalidationOutboxRepository.findAfter(position, properties.getBatchSize())) {
+                markMissing(position, event.id(), now);
+                position = event.id();
+                deliver(event);
+            }
+        } catch (DataAccessException e) {
+            // Keep the position and the missing ids, the next poll resumes from them
+            log.warn("Could not poll the invalidation outbox. Reason: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation-bus.compaction-interval:PT5M}")
+    public void compact() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long retentionSeconds = properties.getRetention().toSeconds();
+        int deleted;
+        long total = 0;
+        do {
+            deleted = invalidationOutboxRepository.deleteOlderThan(retentionSeconds, COMPACTION_BATCH); // Short statements, no long lock
+            total += deleted;
+        } while (deleted == COMPACTION_BATCH);
+
+        if (total > 0) {
+            log.debug("Invalidation outbox compacted. Deleted: {}", total);
+        }
+    }
+
+    /**
+     * Records the ids between two read ids as missing. Past MAX_MISSING_IDS, the lowest ones are given up on at once.
+     */
+    private void markMissing(long after, long before, long now) {
+        long gap = before - after - 1;
+        long kept = Math.min(gap, MAX_MISSING_IDS - missingIds.size());
+        for (long id = before - kept; id < before; id++) {
+            missingIds.put(id, now);
+        }
+        if (gap > kept) {
+            skippedGapsCounter.increment(gap - kept);
+            log.debug("Invalidation outbox gap too large, ids skipped. From id: {}, Count: {}", after + 1, gap - kept);
+        }
+    }
+
+    private void expireMissingIds(long now) {
+        long graceNanos = properties.getGapGrace().toNanos();
+        Iterator<Map.Entry<Long, Long>> iterator = missingIds.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> missing = iterator.next();
+            if (now - missing.getValue() < graceNanos) {
+                break; // Insertion order is the order they were found missing in
+            }
+            iterator.remove();
+            skippedGapsCounter.increment();
+            log.debug("Invalidation outbox gap skipped. Missing id: {}", missing.getKey());
+        }
+    }
+
+    private void deliver(OutboxEvent event) {
+        if (!event.origin().equals(invalidationOutbox.getNodeId())) {
+            apply(event);
+            lagTimer.record(Math.max(0, event.ageMillis()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void apply(OutboxEvent event) {
+        try {
+            switch (event.kind()) {
+                case USER -> {
+                    UserAuthChangedEvent changed = new UserAuthChangedEvent(event.subjectId(), event.email(), Boolean.TRUE.equals(event.enabled()));
+                    customUserDetailsService.onUserAuthChanged(changed); // Also makes the reload skip lagging replicas
+                    disabledUserRegistry.onUserAuthChanged(changed);
+                    userRolesCacheEvictor.onUserAuthChanged(changed);
+                    userSearchIndexListener.onUserAuthChanged(changed);
+                }
+                case TOKEN -> revokedTokenRegistry.add(event.subjectId(), event.expiresAt());
+            }
+            appliedCounters.get(event.kind()).increment();
+        } catch (RuntimeException e) {
+            // A failed invalidation must not stop the bus; the local state catches up on its own refresh or expiration
+            log.warn("Could not apply invalidation. Id: {}, Kind: {}, Subject: {}, Reason: {}", event.id(), event.kind(), event.subjectId(), e.getMessage());
+        }
+    }
+}
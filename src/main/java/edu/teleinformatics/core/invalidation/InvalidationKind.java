@@ -0,0 +1,6 @@
+package edu.teleinformatics.core.invalidation;
+
+public enum InvalidationKind {
+    USER, // Enabled flag or roles of a user changed: subject is the user id
+    TOKEN // An access token was revoked: subject is its jti
+}
@@ -0,0 +1,44 @@
+package edu.teleinformatics.core.invalidation;
+
+import edu.teleinformatics.core.config.InvalidationBusProperties;
+import edu.teleinformatics.core.db.outbox.repository.InvalidationOutboxRepository;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Writing side of the invalidation bus: appends a row to invalidation_outbox inside the transaction of the change, so
+ * the other instances hear of a change if and only if it commits. The row is written just before commit, which keeps
+ * the time its AUTO_INCREMENT id is allocated but not yet visible (a gap for the readers) as short as possible.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvalidationOutbox {
+    @Getter
+    private final UUID nodeId = UUID.randomUUID(); // Origin of this instance's rows, which InvalidationBus doesn't apply twice
+
+    private final InvalidationOutboxRepository invalidationOutboxRepository;
+    private final InvalidationBusProperties properties;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (properties.isEnabled() && event.userId() != null) {
+            invalidationOutboxRepository.append(InvalidationKind.USER, event.userId(), event.email(), event.enabled(), null, nodeId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendTokenRevoked(UUID jti, Instant expiresAt) {
+        if (properties.isEnabled()) {
+            invalidationOutboxRepository.append(InvalidationKind.TOKEN, jti, null, null, expiresAt, nodeId);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.teleinformatics.core.metrics;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Installs PoolWaitTimingTrackerFactory on every Hikari pool before it starts. Spring Boot's own Hikari metrics
+     * binding only applies when no tracker is set, so the standard hikaricp.* metrics come from the wrapped tracker.
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolWaitTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+                    dataSource.setMetricsTrackerFactory(new PoolWaitTimingTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry.getObject())));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Occupancy of the asynchronous log queue configured in logback-spring.xml. A queue that stays near its capacity
+     * means events are being dropped; lower the log volume (error-logging sampling) or raise logging.async.queue-size.
+     */
+    @Bean
+    public MeterBinder asyncLogQueueMetrics() {
+        return registry -> {
+            if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                    && context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("ASYNC") instanceof AsyncAppender appender) {
+                Gauge.builder("logging.async.queue.size", appender, AsyncAppender::getNumberOfElementsInQueue)
+                        .description("Log events waiting to be written")
+                        .register(registry);
+                Gauge.builder("logging.async.queue.capacity", appender, AsyncAppender::getQueueSize)
+                        .description("Maximum log events the queue holds before dropping")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package edu.teleinformatics.core.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Phases of a request reported in the Server-Timing header. The metric name for each phase is listed next to it.
+ */
+@RequiredArgsConstructor
+@Getter
+public enum RequestPhase {
+    JWT("jwt", "JWT verification"),            // auth.jwt.verify
+    PRINCIPAL("principal", "Principal load"),  // auth.principal.load
+    BCRYPT("bcrypt", "Password hashing"),      // auth.hashing.queue.wait + auth.hashing.duration
+    DB_POOL("db-pool", "Connection pool wait"); // hikaricp.connections.acquire
+
+    private final String metricName; // Server-Timing metric name, must be an HTTP token
+    private final String description;
+}
@@ -0,0 +1,66 @@
+package edu.teleinformatics.core.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Adds a Server-Timing header with the RequestPhase breakdown to every response, so slow requests can be diagnosed
+ * from the browser devtools. Disabled by default (server-timing.enabled), it exposes internal timings to the client.
+ */
+@Component
+@ConditionalOnProperty(prefix = "server-timing", name = "enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE) // Outside the security filter chain, so JwtFilter's work is included
+public class ServerTimingFilter extends OncePerRequestFilter {
+    static final String HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ServerTimings timings = new ServerTimings();
+        request.setAttribute(ServerTimings.ATTRIBUTE, timings);
+
+        ServerTimingResponseWrapper timedResponse = new ServerTimingResponseWrapper(response, timings, System.nanoTime());
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            timedResponse.writeHeader(); // Responses without a body are only committed after the chain returns
+        }
+    }
+
+    /**
+     * Headers can only be added before the response is committed, so the header is written right before that happens.
+     */
+    private static class ServerTimingResponseWrapper extends OnCommittedResponseWrapper {
+        private final ServerTimings timings;
+        private final long startNanos;
+        private boolean written;
+
+        ServerTimingResponseWrapper(HttpServletResponse response, ServerTimings timings, long startNanos) {
+            super(response);
+            this.timings = timings;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            addHeader(HEADER, timings.toHeaderValue(System.nanoTime() - startNanos));
+        }
+    }
+}
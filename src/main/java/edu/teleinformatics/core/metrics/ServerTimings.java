@@ -0,0 +1,52 @@
+package edu.teleinformatics.core.metrics;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Locale;
+
+/**
+ * Time spent in each RequestPhase by the current request. ServerTimingFilter stores an instance as a request attribute
+ * when the Server-Timing header is enabled; otherwise {@link #record} finds nothing and does nothing.
+ */
+public final class ServerTimings {
+    static final String ATTRIBUTE = ServerTimings.class.getName();
+
+    private final long[] nanos = new long[RequestPhase.values().length];
+
+    /**
+     * Adds the duration to the current request's breakdown. Must be called on the request thread.
+     */
+    public static void record(RequestPhase phase, long durationNanos) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof ServerTimings timings) {
+            timings.add(phase, durationNanos);
+        }
+    }
+
+    synchronized void add(RequestPhase phase, long durationNanos) {
+        nanos[phase.ordinal()] += durationNanos;
+    }
+
+    /**
+     * Formats the header value, e.g. {@code jwt;desc="JWT verification";dur=0.142, total;dur=3.871}. Phases the request
+     * didn't go through are left out.
+     */
+    synchronized String toHeaderValue(long totalNanos) {
+        StringBuilder value = new StringBuilder();
+        for (RequestPhase phase : RequestPhase.values()) {
+            long phaseNanos = nanos[phase.ordinal()];
+            if (phaseNanos > 0) {
+                value.append(phase.getMetricName())
+                        .append(";desc=\"").append(phase.getDescription()).append('"')
+                        .append(";dur=").append(millis(phaseNanos))
+                        .append(", ");
+            }
+        }
+        return value.append("total;dur=").append(millis(totalNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
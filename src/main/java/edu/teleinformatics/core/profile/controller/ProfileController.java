@@ -0,0 +1,95 @@
+package edu.teleinformatics.core.profile.controller;
+
+import edu.teleinformatics.core.db.user.projection.ProfileSummary;
+import edu.teleinformatics.core.db.user.projection.ProfileView;
+import edu.teleinformatics.core.exception.NotFoundException;
+import edu.teleinformatics.core.profile.dto.UpdateProfile;
+import edu.teleinformatics.core.profile.service.ProfileService;
+import edu.teleinformatics.core.security.CustomUserDetails;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Profile endpoints. Reads answer conditional requests (If-None-Match / If-Modified-Since) with 304 Not Modified after
+ * looking up only the profile version, before the profile itself is queried or serialized.
+ */
+@RestController
+@RequestMapping("/api/profiles")
+@RequiredArgsConstructor
+@Validated
+@SecurityRequirement(name = "Bearer Authentication")
+public class ProfileController {
+    // Private: only the browser of the user may store it; no-cache: revalidate on every use, which is what makes the 304s
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final ProfileService profileService;
+
+    @GetMapping("/me")
+    @Operation(summary = "Get my profile", description = "Full profile of the authenticated user, bio included. Supports If-None-Match and If-Modified-Since")
+    public ResponseEntity<ProfileView> getMyProfile(@AuthenticationPrincipal CustomUserDetails userDetails, WebRequest webRequest) {
+        LocalDateTime version = findVersion(userDetails.getId());
+        String etag = ProfileService.etag(version, false);
+        if (webRequest.checkNotModified(etag, ProfileService.lastModified(version))) {
+            return null; // 304 with the ETag and Last-Modified headers already set
+        }
+
+        ProfileView profile = profileService.getProfile(userDetails.getId());
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CONTROL)
+                .eTag(ProfileService.etag(profile.updatedAt(), false)) // From the loaded row, it may be newer than the version checked above
+                .lastModified(ProfileService.lastModified(profile.updatedAt()))
+                .body(profile);
+    }
+
+    @GetMapping("/{userId}/summary")
+    @Operation(summary = "Get a profile summary", description = "Name and avatar of a user, without the bio. Supports If-None-Match and If-Modified-Since")
+    public ResponseEntity<ProfileSummary> getSummary(@PathVariable UUID userId, WebRequest webRequest) {
+        LocalDateTime version = findVersion(userId);
+        if (webRequest.checkNotModified(ProfileService.etag(version, true), ProfileService.lastModified(version))) {
+            return null;
+        }
+
+        ProfileSummary summary = profileService.getSummary(userId);
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CONTROL)
+                .eTag(ProfileService.etag(summary.updatedAt(), true))
+                .lastModified(ProfileService.lastModified(summary.updatedAt()))
+                .body(summary);
+    }
+
+    @PutMapping("/me")
+    @Operation(summary = "Update my profile", description = "Creates the profile, or replaces it when If-Match carries its current ETag (412 if it changed, 428 without If-Match)")
+    public ResponseEntity<ProfileView> updateMyProfile(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                       @Valid @RequestBody UpdateProfile updateProfile) {
+        ProfileView profile = profileService.updateProfile(userDetails.getId(), updateProfile, ifMatch);
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CONTROL)
+                .eTag(ProfileService.etag(profile.updatedAt(), false))
+                .lastModified(ProfileService.lastModified(profile.updatedAt()))
+                .body(profile);
+    }
+
+    private LocalDateTime findVersion(UUID userId) {
+        return profileService.findVersion(userId)
+                .orElseThrow(() -> new NotFoundException("The user has no profile"));
+    }
+}
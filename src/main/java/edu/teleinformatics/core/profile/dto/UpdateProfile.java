@@ -0,0 +1,32 @@
+package edu.teleinformatics.core.profile.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import edu.teleinformatics.core.config.TrimStringDeserializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public record UpdateProfile(
+        @NotBlank(message = "First name cannot be blank")
+        @Size(max = 50, message = "First name must be at most 50 characters long")
+        @JsonDeserialize(using = TrimStringDeserializer.class)
+        @Schema(description = "First name", example = "Ana")
+        String firstName,
+
+        @NotBlank(message = "Last name cannot be blank")
+        @Size(max = 50, message = "Last name must be at most 50 characters long")
+        @JsonDeserialize(using = TrimStringDeserializer.class)
+        @Schema(description = "Last name", example = "García")
+        String lastName,
+
+        @Size(max = 255, message = "Avatar URL must be at most 255 characters long")
+        @Pattern(regexp = "^https://\\S+$", message = "Avatar URL must be an https URL")
+        @JsonDeserialize(using = TrimStringDeserializer.class)
+        @Schema(description = "Optional https URL of the avatar image", example = "https://cdn.example.com/avatars/ana.png")
+        String avatarUrl,
+
+        @Size(max = 5000, message = "Bio must be at most 5000 characters long")
+        @Schema(description = "Optional free text about the user")
+        String bio) {
+}
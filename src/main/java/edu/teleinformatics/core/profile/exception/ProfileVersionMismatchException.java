@@ -0,0 +1,13 @@
+package edu.teleinformatics.core.profile.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ProfileVersionMismatchException extends RuntimeException {
+  private final String currentEtag; // Null when the profile doesn't exist
+
+  public ProfileVersionMismatchException(String message, String currentEtag) {
+    super(message);
+    this.currentEtag = currentEtag;
+  }
+}
@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.profile.exception;
+
+public class ProfileVersionRequiredException extends RuntimeException {
+  public ProfileVersionRequiredException(String message) {
+    super(message);
+  }
+}
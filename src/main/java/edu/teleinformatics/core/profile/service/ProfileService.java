@@ -0,0 +1,129 @@
+package edu.teleinformatics.core.profile.service;
+
+import edu.teleinformatics.core.db.routing.ReadYourWrites;
+import edu.teleinformatics.core.db.user.entity.UserDetails;
+import edu.teleinformatics.core.db.user.projection.ProfileSummary;
+import edu.teleinformatics.core.db.user.projection.ProfileView;
+import edu.teleinformatics.core.db.user.repository.UserDetailsRepository;
+import edu.teleinformatics.core.db.user.repository.UserRepository;
+import edu.teleinformatics.core.exception.NotFoundException;
+import edu.teleinformatics.core.profile.dto.UpdateProfile;
+import edu.teleinformatics.core.profile.exception.ProfileVersionMismatchException;
+import edu.teleinformatics.core.profile.exception.ProfileVersionRequiredException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Profiles (user_details). The version of a profile is its updated_at: conditional reads compare it before loading the
+ * profile, so a client revalidating an unchanged profile costs one index lookup, and updates must carry the version
+ * they were based on (If-Match) so a stale edit can't overwrite a newer one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProfileService {
+    private final UserDetailsRepository userDetailsRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWrites readYourWrites;
+
+    public Optional<LocalDateTime> findVersion(UUID userId) {
+        return readYourWrites.readUser(userId, () -> userDetailsRepository.findUpdatedAtByUserId(userId));
+    }
+
+    public ProfileView getProfile(UUID userId) {
+        return readYourWrites.readUser(userId, () -> userDetailsRepository.findViewByUserId(userId))
+                .orElseThrow(() -> new NotFoundException("The user has no profile"));
+    }
+
+    public ProfileSummary getSummary(UUID userId) {
+        return readYourWrites.readUser(userId, () -> userDetailsRepository.findSummaryByUserId(userId))
+                .orElseThrow(() -> new NotFoundException("The user has no profile"));
+    }
+
+    /**
+     * Creates or replaces the profile. An existing profile is only replaced when {@code ifMatch} is its current ETag
+     * (or *); creating one needs no If-Match.
+     */
+    public ProfileView updateProfile(UUID userId, UpdateProfile updateProfile, String ifMatch) {
+        ProfileView profile;
+        try {
+            profile = transactionTemplate.execute(status -> {
+                Optional<UserDetails> existing = userDetailsRepository.findByUserIdForUpdate(userId);
+
+                UserDetails userDetails;
+                if (existing.isPresent()) {
+                    userDetails = existing.get();
+                    String currentEtag = etag(userDetails.getUpdatedAt(), false);
+                    if (ifMatch == null) {
+                        throw new ProfileVersionRequiredException("Updating a profile requires the If-Match header with its ETag");
+                    }
+                    if (!ifMatch.equals("*") && !matches(ifMatch, currentEtag)) {
+                        throw new ProfileVersionMismatchException("The profile was modified since it was read", currentEtag);
+                    }
+                } else {
+                    if (ifMatch != null) {
+                        throw new ProfileVersionMismatchException("The profile does not exist", null);
+                    }
+                    userDetails = new UserDetails(userRepository.getReferenceById(userId), updateProfile.firstName(), updateProfile.lastName());
+                }
+
+                userDetails.setFirstName(updateProfile.firstName());
+                userDetails.setLastName(updateProfile.lastName());
+                userDetails.setAvatarUrl(updateProfile.avatarUrl());
+                userDetails.setBio(updateProfile.bio());
+                userDetails = userDetailsRepository.saveAndFlush(userDetails); // Flush runs @PrePersist/@PreUpdate, setting the new version
+
+                return new ProfileView(userId, userDetails.getFirstName(), userDetails.getLastName(), userDetails.getAvatarUrl(),
+                        userDetails.getBio(), userDetails.getUpdatedAt());
+            });
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Two first PUTs both find no row (FOR UPDATE takes a shared gap lock), then one insert wins and the other
+            // hits the unique key or deadlocks: the loser's version is stale, as if it had been read before the create.
+            // Locking again waits for the winner to commit.
+            String currentEtag = transactionTemplate.execute(status -> userDetailsRepository.findByUserIdForUpdate(userId)
+                    .map(userDetails -> etag(userDetails.getUpdatedAt(), false))
+                    .orElse(null));
+            if (currentEtag == null) {
+                throw e; // Not a concurrent create
+            }
+            throw new ProfileVersionMismatchException("The profile was created by a concurrent request", currentEtag);
+        }
+
+        readYourWrites.recordUserWrite(userId, null); // After commit, the next read must not come from a lagging replica
+        log.debug("Profile updated. User: {}", userId);
+        return profile;
+    }
+
+    /**
+     * Strong ETag of a profile version. The summary is a different representation of the same version, so it gets a
+     * different tag.
+     */
+    public static String etag(LocalDateTime version, boolean summary) {
+        long micros = ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), version);
+        return "\"" + (summary ? "s" : "p") + Long.toHexString(micros) + "\"";
+    }
+
+    public static long lastModified(LocalDateTime version) {
+        return version.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(); // Hibernate maps TIMESTAMP with the JVM zone
+    }
+
+    private static boolean matches(String ifMatch, String currentEtag) {
+        for (String candidate : ifMatch.split(",")) {
+            if (candidate.trim().equals(currentEtag)) {
+                return true; // Weak tags (W/...) never match, If-Match uses strong comparison
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package edu.teleinformatics.core.roster.controller;
+
+import edu.teleinformatics.core.roster.dto.RosterFormat;
+import edu.teleinformatics.core.roster.service.RosterImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/roster")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+public class RosterImportController {
+    private final RosterImportService rosterImportService;
+
+    // Writes to the servlet response directly: the report is streamed while the upload is still being read, and a large
+    // roster can run for minutes, longer than an async request timeout would allow.
+    @PostMapping(value = "/import", consumes = {RosterFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Bulk import students", description = "Registers every row of a CSV (email,password) or NDJSON roster as a student and streams one NDJSON result per row")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void importRoster(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        rosterImportService.importRoster(body, RosterFormat.from(contentType), response.getOutputStream());
+    }
+}
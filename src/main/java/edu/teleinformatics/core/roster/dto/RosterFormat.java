@@ -0,0 +1,14 @@
+package edu.teleinformatics.core.roster.dto;
+
+import org.springframework.http.MediaType;
+
+public enum RosterFormat {
+    CSV, // One "email,password" row per line, an optional "email,password" header line is skipped
+    NDJSON; // One {"email": "...", "password": "..."} object per line
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static RosterFormat from(MediaType contentType) {
+        return MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,30 @@
+package edu.teleinformatics.core.roster.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a single roster row. One of these is streamed back per input line.
+ *
+ * @param line    Line number in the uploaded file, starting at 1
+ * @param email   Email of the row, when it could be read
+ * @param status  Whether the user was created, already existed or the row was rejected
+ * @param id      Id of the created user, only for CREATED rows
+ * @param message Reason for INVALID rows
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RosterImportResult(long line, String email, RosterImportStatus status, UUID id, String message) {
+
+    public static RosterImportResult created(long line, String email, UUID id) {
+        return new RosterImportResult(line, email, RosterImportStatus.CREATED, id, null);
+    }
+
+    public static RosterImportResult duplicate(long line, String email) {
+        return new RosterImportResult(line, email, RosterImportStatus.DUPLICATE, null, null);
+    }
+
+    public static RosterImportResult invalid(long line, String email, String message) {
+        return new RosterImportResult(line, email, RosterImportStatus.INVALID, null, message);
+    }
+}
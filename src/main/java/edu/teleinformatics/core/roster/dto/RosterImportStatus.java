@@ -0,0 +1,7 @@
+package edu.teleinformatics.core.roster.dto;
+
+public enum RosterImportStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID
+}
@@ -0,0 +1,259 @@
+package edu.teleinformatics.core.roster.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.teleinformatics.core.auth.dto.CreateUser;
+import edu.teleinformatics.core.config.AuthProperties;
+import edu.teleinformatics.core.config.RosterImportProperties;
+import edu.teleinformatics.core.db.user.cache.RegisteredEmailFilter;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.user.exception.RoleNotFoundException;
+import edu.teleinformatics.core.db.user.repository.RoleRepository;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.roster.dto.RosterFormat;
+import edu.teleinformatics.core.roster.dto.RosterImportResult;
+import edu.teleinformatics.core.roster.dto.RosterImportStatus;
+import edu.teleinformatics.core.search.index.UserSearchIndex;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk registration of students from a CSV or NDJSON roster. The input is read line by line and processed in chunks, so
+ * memory use does not depend on the file size: each chunk is validated, checked for duplicates with a single query,
+ * hashed in parallel and written with JDBC batch inserts in its own transaction. A result line is streamed per row.
+ */
+@Service
+@Slf4j
+public class RosterImportService {
+    private static final String CSV_HEADER = "email,password";
+
+    private final RoleRepository roleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final RosterImportProperties rosterImportProperties;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final UserSearchIndex userSearchIndex;
+    private final PasswordEncoder passwordEncoder; // Plain BCrypt, the import has its own pool instead of the login admission queue
+    private final ExecutorService hashingExecutor;
+
+    public RosterImportService(RoleRepository roleRepository, JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                               TransactionTemplate transactionTemplate, Validator validator, ObjectMapper objectMapper,
+                               RosterImportProperties rosterImportProperties, RegisteredEmailFilter registeredEmailFilter,
+                               UserSearchIndex userSearchIndex, AuthProperties authProperties) {
+        this.roleRepository = roleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.rosterImportProperties = rosterImportProperties;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.userSearchIndex = userSearchIndex;
+        this.passwordEncoder = new BCryptPasswordEncoder(authProperties.getHashing().getBcryptStrength());
+        this.hashingExecutor = Executors.newFixedThreadPool(
+                rosterImportProperties.resolveHashingThreads(), new CustomizableThreadFactory("roster-hashing-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    public void importRoster(InputStream input, RosterFormat format, OutputStream output) throws IOException {
+        Integer studentRoleId = roleRepository.findByName(RoleEnum.ROLE_STUDENT)
+                .orElseThrow(() -> new RoleNotFoundException("Default role not found"))
+                .getId();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<RosterRow> chunk = new ArrayList<>(rosterImportProperties.getChunkSize());
+        ImportSummary summary = new ImportSummary();
+
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+
+            if (line.isBlank() || (lineNumber == 1 && format == RosterFormat.CSV && line.trim().equalsIgnoreCase(CSV_HEADER))) {
+                continue;
+            }
+
+            RosterRow row = parse(lineNumber, line, format);
+            if (row.error() != null) {
+                write(output, RosterImportResult.invalid(lineNumber, row.email(), row.error()), summary);
+                continue;
+            }
+
+            chunk.add(row);
+            if (chunk.size() >= rosterImportProperties.getChunkSize()) {
+                processChunk(chunk, studentRoleId, output, summary);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, studentRoleId, output, summary);
+        }
+        output.flush();
+
+        log.info("Roster imported. Created: {}, Duplicates: {}, Invalid: {}", summary.created, summary.duplicates, summary.invalid);
+    }
+
+    private RosterRow parse(long lineNumber, String line, RosterFormat format) {
+        CreateUser user;
+        if (format == RosterFormat.NDJSON) {
+            try {
+                user = objectMapper.readValue(line, CreateUser.class);
+            } catch (JsonProcessingException e) {
+                return RosterRow.invalid(lineNumber, null, "Malformed JSON");
+            }
+        } else {
+            int comma = line.indexOf(','); // Emails can't contain commas, so everything after the first one is the password
+            if (comma < 0) {
+                return RosterRow.invalid(lineNumber, null, "Expected email,password");
+            }
+            user = new CreateUser(line.substring(0, comma).trim(), line.substring(comma + 1));
+        }
+
+        Set<ConstraintViolation<CreateUser>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+            return RosterRow.invalid(lineNumber, user.email(), message);
+        }
+
+        return new RosterRow(lineNumber, user.email(), user.password(), null);
+    }
+
+    private void processChunk(List<RosterRow> chunk, Integer studentRoleId, OutputStream output, ImportSummary summary) throws IOException {
+        // Duplicates inside the file and emails already registered are reported without spending a hash on them.
+        Set<String> existing = findExistingEmails(chunk);
+        Set<String> seen = new HashSet<>();
+        List<RosterRow> pending = new ArrayList<>(chunk.size());
+        List<RosterImportResult> results = new ArrayList<>(chunk.size());
+
+        for (RosterRow row : chunk) {
+            String normalized = row.email().toLowerCase(Locale.ROOT); // The email column uses a case-insensitive collation
+            if (existing.contains(normalized) || !seen.add(normalized)) {
+                results.add(RosterImportResult.duplicate(row.line(), row.email()));
+            } else {
+                pending.add(row);
+            }
+        }
+
+        List<CompletableFuture<String>> hashes = pending.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.password()), hashingExecutor))
+                .toList();
+
+        List<Object[]> userRows = new ArrayList<>(pending.size());
+        List<UUID> ids = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            UUID id = UuidV7.generate();
+            ids.add(id);
+            userRows.add(new Object[]{UuidV7.toBytes(id), pending.get(i).email(), hashes.get(i).join()});
+        }
+
+        if (!pending.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                // INSERT IGNORE skips emails registered concurrently after the duplicate check above. The batch is rewritten
+                // into multi-row INSERTs (rewriteBatchedStatements), which report no per-row counts, so the rows that made it
+                // in are read back instead.
+                jdbcTemplate.batchUpdate("INSERT IGNORE INTO users (id, email, password, enabled) VALUES (?, ?, ?, TRUE)", userRows);
+                Set<UUID> inserted = findExistingIds(ids);
+
+                List<Object[]> roleRows = new ArrayList<>(pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    RosterRow row = pending.get(i);
+                    if (!inserted.contains(ids.get(i))) {
+                        results.add(RosterImportResult.duplicate(row.line(), row.email()));
+                    } else {
+                        roleRows.add(new Object[]{UuidV7.toBytes(ids.get(i)), studentRoleId});
+                        results.add(RosterImportResult.created(row.line(), row.email(), ids.get(i)));
+                    }
+                }
+
+                jdbcTemplate.batchUpdate("INSERT INTO users_roles (user_id, role_id) VALUES (?, ?)", roleRows);
+            });
+
+            pending.forEach(row -> registeredEmailFilter.add(row.email())); // Created or taken concurrently, registered either way
+            // Inserted with JDBC, so the entity listener that keeps the search index current never sees these users
+            results.stream()
+                    .filter(result -> result.status() == RosterImportStatus.CREATED)
+                    .forEach(result -> userSearchIndex.putUser(result.id(), result.email(), true, List.of(RoleEnum.ROLE_STUDENT)));
+        }
+
+        results.sort((a, b) -> Long.compare(a.line(), b.line()));
+        for (RosterImportResult result : results) {
+            write(output, result, summary);
+        }
+        output.flush();
+    }
+
+    private Set<String> findExistingEmails(List<RosterRow> chunk) {
+        List<String> emails = chunk.stream().map(RosterRow::email).toList();
+
+        return namedParameterJdbcTemplate.queryForList("SELECT email FROM users WHERE email IN (:emails)", Map.of("emails", emails), String.class)
+                .stream()
+                .map(email -> email.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+    }
+
+    private Set<UUID> findExistingIds(List<UUID> ids) {
+        List<byte[]> keys = ids.stream().map(UuidV7::toBytes).toList();
+
+        return namedParameterJdbcTemplate.queryForList("SELECT id FROM users WHERE id IN (:ids)", Map.of("ids", keys), byte[].class)
+                .stream()
+                .map(UuidV7::fromBytes)
+                .collect(Collectors.toSet());
+    }
+
+    private void write(OutputStream output, RosterImportResult result, ImportSummary summary) throws IOException {
+        switch (result.status()) {
+            case CREATED -> summary.created++;
+            case DUPLICATE -> summary.duplicates++;
+            case INVALID -> summary.invalid++;
+        }
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+    }
+
+    private record RosterRow(long line, String email, String password, String error) {
+        static RosterRow invalid(long line, String email, String error) {
+            return new RosterRow(line, email, null, error);
+        }
+    }
+
+    private static class ImportSummary {
+        private long created;
+        private long duplicates;
+        private long invalid;
+    }
+}
@@ -0,0 +1,36 @@
+package edu.teleinformatics.core.search.controller;
+
+import edu.teleinformatics.core.config.UserSearchProperties;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.search.dto.UserSuggestion;
+import edu.teleinformatics.core.search.index.UserSearchIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search/users")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'TEACHER')")
+public class UserSearchController {
+    private final UserSearchIndex userSearchIndex;
+    private final UserSearchProperties userSearchProperties;
+
+    @GetMapping
+    @Operation(summary = "Autocomplete users", description = "Enabled users whose name or email words start with every word of the query, ignoring case and accents, optionally filtered by role")
+    public ResponseEntity<List<UserSuggestion>> search(@RequestParam String q,
+                                                       @RequestParam(required = false) RoleEnum role,
+                                                       @RequestParam(required = false) Integer limit) {
+        int results = Math.clamp(limit == null ? userSearchProperties.getDefaultResults() : limit, 1, userSearchProperties.getMaxResults());
+        return ResponseEntity.ok(userSearchIndex.search(q, role, results));
+    }
+}
@@ -0,0 +1,9 @@
+package edu.teleinformatics.core.search.dto;
+
+import java.util.UUID;
+
+/**
+ * One autocomplete result. Names are null when the user has no profile.
+ */
+public record UserSuggestion(UUID id, String email, String firstName, String lastName) {
+}
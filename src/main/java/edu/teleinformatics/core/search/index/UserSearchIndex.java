@@ -0,0 +1,398 @@
+package edu.teleinformatics.core.search.index;
+
+import edu.teleinformatics.core.config.UserSearchProperties;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.search.dto.UserSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory word-prefix index of users for autocomplete. Every word of the first name, last name and email local part
+ * (lower-cased, accents removed) and the whole email are keys of a sorted map pointing to the users that contain them,
+ * so a prefix search is a range scan over the keys starting at the typed prefix, with no query and no full scan.
+ * <p>
+ * The index is loaded from the database on startup and kept current by UserSearchIndexListener after each commit.
+ * Reads are lock-free: postings are immutable arrays replaced as a whole, writes are serialized by a lock. Changes made
+ * by other instances arrive through the invalidation bus for the enabled flag and roles; name edits wait for a restart.
+ */
+@Component
+@Slf4j
+public class UserSearchIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final String SELECT = """
+            SELECT u.id, u.email, u.enabled, d.first_name, d.last_name,
+                   (SELECT GROUP_CONCAT(r.name) FROM users_roles ur JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = u.id) AS roles
+            FROM users u
+            LEFT JOIN user_details d ON d.user_id = u.id
+            """;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final UserSearchProperties properties;
+
+    private final ConcurrentSkipListMap<String, Entry[]> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<UUID, Entry> users = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private volatile boolean loaded; // Until the startup load finishes, partial updates can't rely on the indexed entry
+
+    private final Timer searchTimer;
+
+    public UserSearchIndex(DataSource dataSource, UserSearchProperties properties, MeterRegistry meterRegistry) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE); // MySQL Connector/J streams rows one by one with this value
+        this.properties = properties;
+
+        this.searchTimer = Timer.builder("users.search.duration")
+                .description("Autocomplete searches answered from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.users", users, Map::size)
+                .description("Users in the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.keys", postings, Map::size)
+                .description("Distinct words in the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.memory", estimatedBytes, AtomicLong::get)
+                .description("Estimated heap used by the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the index with one streaming scan. Entries are staged outside the lock and merged at the end; users that were
+     * updated through the listener while the scan ran keep their newer entry.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        List<Entry> staged = new ArrayList<>();
+        Map<String, List<Entry>> stagedPostings = new HashMap<>();
+
+        streamingJdbcTemplate.query(SELECT, (RowCallbackHandler) resultSet -> {
+            Entry entry = read(resultSet);
+            staged.add(entry);
+            for (String key : entry.keys()) {
+                stagedPostings.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+            }
+        });
+
+        synchronized (writeLock) {
+            for (Entry entry : staged) {
+                users.putIfAbsent(entry.id, entry);
+            }
+            stagedPostings.forEach((key, entries) -> {
+                Entry[] current = entries.stream().filter(entry -> users.get(entry.id) == entry).toArray(Entry[]::new);
+                if (current.length > 0) {
+                    postings.merge(key, current, UserSearchIndex::concat);
+                }
+            });
+            estimatedBytes.set(measure());
+            loaded = true;
+        }
+
+        long bytes = estimatedBytes.get();
+        log.info("User search index loaded. Users: {}, Keys: {}, Memory: {} KB, Bytes per user: {}, Time: {} ms",
+                users.size(), postings.size(), bytes / 1024, users.isEmpty() ? 0 : bytes / users.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Up to {@code limit} enabled users matching every word of the query as a word prefix, optionally with the given role.
+     * A query containing '@' is matched as a prefix of the whole email instead.
+     */
+    public List<UserSuggestion> search(String query, RoleEnum role, int limit) {
+        long start = System.nanoTime();
+        try {
+            return find(query, role, limit);
+        } finally {
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Indexes a user, or updates its email, enabled flag and roles keeping its indexed names.
+     */
+    public void putUser(UUID id, String email, boolean enabled, Collection<RoleEnum> roles) {
+        synchronized (writeLock) {
+            Entry existing = users.get(id);
+            if (existing != null || loaded) {
+                String firstName = existing == null ? null : existing.firstName;
+                String lastName = existing == null ? null : existing.lastName;
+                replace(existing, new Entry(id, email, firstName, lastName, mask(roles), enabled));
+                return;
+            }
+        }
+        refresh(id); // The startup scan may not have reached it, and it may have a profile the caller doesn't know about
+    }
+
+    /**
+     * Updates the indexed names of a user; null names remove them (profile deleted).
+     */
+    public void putProfile(UUID userId, String firstName, String lastName) {
+        synchronized (writeLock) {
+            Entry existing = users.get(userId);
+            if (existing != null) {
+                replace(existing, new Entry(userId, existing.email, firstName, lastName, existing.roles, existing.enabled));
+                return;
+            }
+        }
+        refresh(userId); // The query runs outside the lock
+    }
+
+    public void remove(UUID id) {
+        synchronized (writeLock) {
+            replace(users.get(id), null);
+        }
+    }
+
+    /**
+     * Re-reads a user from the database, for changes the caller can't describe (role assignments written elsewhere).
+     */
+    public void refresh(UUID id) {
+        List<Entry> rows = streamingJdbcTemplate.query(SELECT + "WHERE u.id = ?", (resultSet, rowNum) -> read(resultSet), UuidV7.toBytes(id));
+        synchronized (writeLock) {
+            replace(users.get(id), rows.isEmpty() ? null : rows.getFirst());
+        }
+    }
+
+    private List<UserSuggestion> find(String query, RoleEnum role, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+
+        List<String> terms = query.indexOf('@') >= 0 ? List.of(normalize(query.trim())) : words(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        // The longest term has the fewest matching keys; the others are checked against each candidate
+        String driver = Collections.max(terms, (a, b) -> Integer.compare(a.length(), b.length()));
+        int roleMask = role == null ? 0 : 1 << role.ordinal();
+
+        List<UserSuggestion> results = new ArrayList<>(Math.min(limit, 16));
+        Set<Entry> added = Collections.newSetFromMap(new IdentityHashMap<>()); // A user can match through several words
+        int scanned = 0;
+
+        for (Map.Entry<String, Entry[]> posting : postings.tailMap(driver).entrySet()) {
+            if (!posting.getKey().startsWith(driver)) {
+                break;
+            }
+            for (Entry entry : posting.getValue()) {
+                if (++scanned > properties.getMaxScanned()) {
+                    return results;
+                }
+                if (!entry.enabled || (roleMask != 0 && (entry.roles & roleMask) == 0) || !entry.matches(terms) || !added.add(entry)) {
+                    continue;
+                }
+                results.add(new UserSuggestion(entry.id, entry.email, entry.firstName, entry.lastName));
+                if (results.size() == limit) {
+                    return results;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Swaps the entry of a user. Called with the write lock held; {@code current} null adds, {@code updated} null removes.
+     */
+    private void replace(Entry current, Entry updated) {
+        if (current != null) {
+            for (String key : current.keys()) {
+                Entry[] remaining = postings.computeIfPresent(key, (k, entries) -> {
+                    Entry[] filtered = without(entries, current);
+                    return filtered.length == 0 ? null : filtered;
+                });
+                if (remaining == null) {
+                    estimatedBytes.addAndGet(-keyBytes(key));
+                }
+            }
+            users.remove(current.id, current);
+            estimatedBytes.addAndGet(-current.bytes());
+        }
+
+        if (updated != null) {
+            for (String key : updated.keys()) {
+                if (postings.merge(key, new Entry[]{updated}, UserSearchIndex::concat).length == 1) {
+                    estimatedBytes.addAndGet(keyBytes(key));
+                }
+            }
+            users.put(updated.id, updated);
+            estimatedBytes.addAndGet(updated.bytes());
+        }
+    }
+
+    private long measure() {
+        long bytes = 0;
+        for (Entry entry : users.values()) {
+            bytes += entry.bytes();
+        }
+        for (String key : postings.keySet()) {
+            bytes += keyBytes(key);
+        }
+        return bytes;
+    }
+
+    private static Entry read(ResultSet resultSet) throws SQLException {
+        String roles = resultSet.getString("roles");
+        return new Entry(
+                UuidV7.fromBytes(resultSet.getBytes("id")),
+                resultSet.getString("email"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                roles == null ? 0 : mask(Arrays.stream(roles.split(",")).map(RoleEnum::valueOf).toList()),
+                resultSet.getBoolean("enabled"));
+    }
+
+    private static int mask(Collection<RoleEnum> roles) {
+        int mask = 0;
+        for (RoleEnum role : roles) {
+            mask |= 1 << role.ordinal();
+        }
+        return mask;
+    }
+
+    private static Entry[] concat(Entry[] a, Entry[] b) {
+        Entry[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry removed) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == removed) {
+                if (entries.length == 1) {
+                    return NO_ENTRIES;
+                }
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Lower-cased with diacritics removed, so "José" and "jose" are the same word, like the unicode_ci collation.
+     */
+    static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower; // Plain ASCII, nothing to decompose
+    }
+
+    static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>(4);
+        for (String word : SEPARATORS.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Heap estimates for a 64-bit JVM with compressed oops and compact strings
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xff);
+        return 24 + align(16 + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long keyBytes(String key) {
+        return 24 + 8 + 16 + stringBytes(key); // Skip list node, its share of index nodes and the postings array header
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    /**
+     * An indexed user. Immutable: a change replaces the entry in every posting that referenced it.
+     */
+    private static final class Entry {
+        private final UUID id;
+        private final String email;
+        private final String firstName;
+        private final String lastName;
+        private final int roles; // Bit per RoleEnum ordinal
+        private final boolean enabled;
+        private final String words; // " word word ... ", normalized, for checking the query terms after the first one
+
+        private Entry(UUID id, String email, String firstName, String lastName, int roles, boolean enabled) {
+            this.id = id;
+            this.email = email;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.roles = roles;
+            this.enabled = enabled;
+
+            Set<String> distinct = new LinkedHashSet<>(words(firstName));
+            distinct.addAll(words(lastName));
+            distinct.addAll(words(email.substring(0, Math.max(0, email.indexOf('@')))));
+            this.words = " " + String.join(" ", distinct) + " ";
+        }
+
+        private List<String> keys() {
+            List<String> keys = new ArrayList<>(words(words));
+            keys.add(normalize(email)); // Whole email, for queries containing '@'
+            return keys;
+        }
+
+        private boolean matches(List<String> terms) {
+            for (String term : terms) {
+                if (term.indexOf('@') < 0 && !words.contains(" " + term)) { // Email queries have a single term, matched by the scan
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long bytes() {
+            long bytes = 40 + 32 + 40; // Entry, UUID and the node of the users map with its share of the table
+            bytes += stringBytes(firstName) + stringBytes(lastName) + stringBytes(words);
+            if (!normalize(email).equals(email)) {
+                bytes += stringBytes(email); // Otherwise normalize returned the same instance, counted as the posting key
+            }
+            return bytes + 4L * keys().size(); // One reference per posting
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package edu.teleinformatics.core.search.index;
+
+import edu.teleinformatics.core.db.user.entity.Role;
+import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.db.user.entity.UserDetails;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Hibernate post-commit listener of User and UserDetails that keeps UserSearchIndex current. It is registered on the
+ * SessionFactory from here, so the entities don't depend on the search layer. Hibernate calls it once the transaction
+ * has committed, so a rolled back change never reaches the index. Role assignments are collection changes, which don't
+ * update the user row; those arrive as UserAuthChangedEvent instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final UserSearchIndex userSearchIndex;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entityClass = persister.getMappedClass();
+        return entityClass == User.class || entityClass == UserDetails.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onSaved(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onSaved(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        switch (event.getEntity()) {
+            case User user -> userSearchIndex.remove(user.getId());
+            case UserDetails details -> userSearchIndex.putProfile(details.getUser().getId(), null, null);
+            default -> {
+            }
+        }
+    }
+
+    // Rolled back: the index never saw the change
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.userId() != null) {
+            userSearchIndex.refresh(event.userId()); // Picks up role changes written through User.addRole
+        }
+    }
+
+    private void onSaved(Object entity) {
+        switch (entity) {
+            case User user -> userSearchIndex.putUser(user.getId(), user.getEmail(), user.isEnabled(),
+                    user.getRoles().stream().map(Role::getName).toList());
+            case UserDetails details -> userSearchIndex.putProfile(details.getUser().getId(), // Read from the proxy without initializing it
+                    details.getFirstName(), details.getLastName());
+            default -> {
+            }
+        }
+    }
+}
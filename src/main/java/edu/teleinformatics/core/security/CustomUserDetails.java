@@ -1,6 +1,6 @@
 package edu.teleinformatics.core.security;
 
-import edu.teleinformatics.core.db.user.entity.Role;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
@@ -19,13 +19,13 @@ public class CustomUserDetails implements UserDetails {
     private final UUID id;
     private final String email;
     private final String password;
-    private final Set<Role> roles;
+    private final Set<RoleEnum> roles; // Role names only, so the principal never holds on to managed Role entities
     private final boolean enabled;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
+                .map(role -> new SimpleGrantedAuthority(role.name()))
                 .collect(Collectors.toList());
     }
 
@@ -1,29 +1,146 @@
 package edu.teleinformatics.core.security;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import edu.teleinformatics.core.auth.exception.AuthUserNotFoundException;
-import edu.teleinformatics.core.db.user.entity.User;
+import edu.teleinformatics.core.config.AuthProperties;
+import edu.teleinformatics.core.db.routing.ReadYourWrites;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import edu.teleinformatics.core.db.user.projection.AuthUser;
 import edu.teleinformatics.core.db.user.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import edu.teleinformatics.core.metrics.RequestPhase;
+import edu.teleinformatics.core.metrics.ServerTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Loads principals for authentication. Loaded principals are kept in bounded caches so parallel requests of the same user
+ * don't each run a query; concurrent misses for the same key wait for a single load instead of all going to the database.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final ReadYourWrites readYourWrites;
+    private final AsyncCache<UUID, CustomUserDetails> principalsById;
+    private final AsyncCache<String, CustomUserDetails> principalsByEmail;
+    private final Timer loadByIdTimer;
+    private final Timer loadByEmailTimer;
 
+    public CustomUserDetailsService(UserRepository userRepository, ReadYourWrites readYourWrites, AuthProperties authProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.readYourWrites = readYourWrites;
 
+        AuthProperties.PrincipalCache cacheProperties = authProperties.getPrincipalCache();
+        this.principalsById = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.principalsByEmail = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principalsById.synchronous(), "auth.principals.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, principalsByEmail.synchronous(), "auth.principals.by-email");
+        this.loadByIdTimer = loadTimer(meterRegistry, "id");
+        this.loadByEmailTimer = loadTimer(meterRegistry, "email");
+    }
+
+    // No @Transactional here: a cache hit must not open a transaction, the repository call runs in its own read-only one,
+    // which goes to a replica when datasource routing is enabled, unless the user was written moments ago.
     @Override
-    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws AuthUserNotFoundException {
-        return userRepository
-                .findAuthUserByEmail(email)
+        // The email column uses a case-insensitive collation, so one key per user and the eviction can find it
+        return load(principalsByEmail, email.toLowerCase(Locale.ROOT), key -> readYourWrites.readUser(key, () -> findByEmail(key)));
+    }
+
+    public UserDetails loadUserById(UUID id) throws AuthUserNotFoundException {
+        return load(principalsById, id, key -> readYourWrites.readUser(key, () -> findById(key)));
+    }
+
+    /**
+     * Removes every cached principal of the given user, so the next request reloads it from the database. Without the
+     * email, the email cache is scanned for the id.
+     */
+    public void evict(UUID id, String email) {
+        principalsById.synchronous().invalidate(id);
+        if (email != null) {
+            principalsByEmail.synchronous().invalidate(email.toLowerCase(Locale.ROOT));
+        } else {
+            principalsByEmail.synchronous().asMap().values().removeIf(principal -> principal.getId().equals(id));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.userId() != null) {
+            readYourWrites.recordUserWrite(event.userId(), event.email()); // Before the eviction, so the reload reads the primary
+            evict(event.userId(), event.email());
+            log.debug("Cached principal evicted. Id: {}", event.userId());
+        }
+    }
+
+    public CacheStats getPrincipalsByIdStats() {
+        return principalsById.synchronous().stats();
+    }
+
+    public CacheStats getPrincipalsByEmailStats() {
+        return principalsByEmail.synchronous().stats();
+    }
+
+    /**
+     * Returns the cached principal or loads it, with one load per key however many requests miss at once. Not
+     * Cache.get(key, loader): Caffeine runs that loader inside ConcurrentHashMap.compute, under a synchronized bin lock,
+     * and on JDK 21 a virtual thread waiting there for a connection pins its carrier. With every carrier pinned, the
+     * threads holding the connections can't run to return them. Here only the future is inserted under the lock, the
+     * query runs outside it and concurrent misses park on the future.
+     */
+    private static <K> CustomUserDetails load(AsyncCache<K, CustomUserDetails> cache, K key, Function<K, CustomUserDetails> loader) {
+        CompletableFuture<CustomUserDetails> cached = cache.getIfPresent(key); // Records the hit or miss
+        if (cached == null) {
+            CompletableFuture<CustomUserDetails> loading = new CompletableFuture<>();
+            cached = cache.asMap().putIfAbsent(key, loading);
+            if (cached == null) {
+                try {
+                    CustomUserDetails principal = loader.apply(key);
+                    loading.complete(principal);
+                    return principal;
+                } catch (RuntimeException | Error e) {
+                    loading.completeExceptionally(e); // Caffeine drops failed futures, the next request loads again
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CustomUserDetails findByEmail(String email) {
+        return timed(loadByEmailTimer, () -> userRepository.findAuthUserByEmail(email))
                 .map(this::mapToCustomUserDetails)
                 .orElseThrow(() -> {
                     log.debug("Could not find user with email: {}", email);
@@ -31,10 +148,8 @@ public class CustomUserDetailsService implements UserDetailsService {
                 });
     }
 
-    @Transactional(readOnly = true)
-    public UserDetails loadUserById(UUID id) throws AuthUserNotFoundException {
-        return userRepository
-                .findAuthUserById(id)
+    private CustomUserDetails findById(UUID id) {
+        return timed(loadByIdTimer, () -> userRepository.findAuthUserById(id))
                 .map(this::mapToCustomUserDetails)
                 .orElseThrow(() -> {
                     log.debug("Could not find user with id: {}", id);
@@ -42,13 +157,35 @@ public class CustomUserDetailsService implements UserDetailsService {
                 });
     }
 
-    private CustomUserDetails mapToCustomUserDetails(User user) {
+    /**
+     * Times a principal query, which only runs on a cache miss.
+     */
+    private static Optional<AuthUser> timed(Timer timer, Supplier<Optional<AuthUser>> query) {
+        long start = System.nanoTime();
+        try {
+            return query.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            ServerTimings.record(RequestPhase.PRINCIPAL, elapsed);
+        }
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String lookup) {
+        return Timer.builder("auth.principal.load")
+                .description("Time spent loading principals from the database on a cache miss")
+                .tag("lookup", lookup)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private CustomUserDetails mapToCustomUserDetails(AuthUser user) {
         return new CustomUserDetails(
-                user.getId(),
-                user.getEmail(),
-                user.getPassword(),
-                user.getRoles(),
-                user.isEnabled()
+                user.id(),
+                user.email(),
+                user.password(),
+                user.roles(),
+                user.enabled()
         );
     }
 }
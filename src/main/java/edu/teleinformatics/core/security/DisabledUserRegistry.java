@@ -0,0 +1,80 @@
+package edu.teleinformatics.core.security;
+
+import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.db.user.event.UserAuthChangedEvent;
+import edu.teleinformatics.core.db.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory snapshot of the ids of disabled users. It lets JwtFilter enforce the enabled flag on principals built from
+ * token claims without querying the users table on every request. Only populated when the stateless principal mode is on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DisabledUserRegistry {
+    private final UserRepository userRepository;
+    private final JwtProperties jwtProperties;
+
+    private final AtomicReference<Set<UUID>> disabledUserIds = new AtomicReference<>(); // Immutable snapshots, null until the first load succeeds
+
+    public boolean isLoaded() {
+        return disabledUserIds.get() != null;
+    }
+
+    public boolean isDisabled(UUID id) {
+        return disabledUserIds.get().contains(id);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.stateless-principal.disabled-users-refresh:PT30S}")
+    public void refresh() {
+        if (!jwtProperties.getStatelessPrincipal().isEnabled()) {
+            return;
+        }
+
+        try {
+            Set<UUID> snapshot = Set.copyOf(userRepository.findDisabledUserIds());
+            disabledUserIds.set(snapshot);
+            log.debug("Disabled users refreshed. Count: {}", snapshot.size());
+        } catch (DataAccessException e) {
+            // Keep serving the previous snapshot, the next refresh will try again.
+            log.warn("Could not refresh disabled users. Reason: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Applies an enabled flag change right after it is committed instead of waiting for the next refresh.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        if (event.userId() != null) {
+            apply(event.userId(), event.enabled());
+        }
+    }
+
+    public void apply(UUID id, boolean enabled) {
+        disabledUserIds.updateAndGet(current -> {
+            if (current == null || current.contains(id) != enabled) {
+                return current; // Not loaded yet, or already in the expected state
+            }
+            Set<UUID> updated = new HashSet<>(current);
+            if (enabled) {
+                updated.remove(id);
+            } else {
+                updated.add(id);
+            }
+            return Set.copyOf(updated);
+        });
+    }
+}
@@ -1,13 +1,21 @@
 package edu.teleinformatics.core.security;
 
+import edu.teleinformatics.core.config.AuthProperties;
+import edu.teleinformatics.core.security.hashing.BoundedPasswordEncoder;
 import edu.teleinformatics.core.security.jwt.JwtFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -19,40 +27,57 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity // Enables @PreAuthorize on controllers
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final JwtFilter jwtFilter;
     private final CustomUserDetailsService userDetailsService;
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
+    private final AuthProperties authProperties;
+    private final ManagementServerProperties managementServerProperties;
+    private final Environment environment;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(request -> request
-                        .requestMatchers("/auth/login", "/auth/register").permitAll()
+                        .requestMatchers("/auth/login", "/auth/register", "/auth/refresh").permitAll()
                         .requestMatchers(
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html"
                         ).permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers(this::isPrometheusScrape).permitAll() // Scraped without a JWT, but only on the internal management port
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated() // All other requests require authentication.
                 )
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint(authenticationEntryPoint)) // Custom handling of authentication exceptions.
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authenticationProvider()) // Uses custom authentication provider.
+                .authenticationProvider(authenticationProvider) // Uses custom authentication provider.
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class); // Adds JWT filter before the default username/password authentication filter.
 
         return http.build();
     }
 
+    /**
+     * Whether the request is for /actuator/prometheus on its own management.server.port. If the actuator shares the
+     * public port, the metrics require an admin JWT like the rest of the actuator.
+     */
+    private boolean isPrometheusScrape(HttpServletRequest request) {
+        return ManagementPortType.get(environment) == ManagementPortType.DIFFERENT
+                && request.getLocalPort() == managementServerProperties.getPort()
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         return provider;
     }
 
@@ -62,7 +87,14 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        AuthProperties.Hashing hashing = authProperties.getHashing();
+
+        // BCrypt runs on its own bounded pool instead of the request threads, see BoundedPasswordEncoder.
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(hashing.getBcryptStrength()),
+                hashing.resolveThreads(),
+                hashing.getQueueCapacity(),
+                meterRegistry);
     }
 }
@@ -1,12 +1,12 @@
 package edu.teleinformatics.core.security.jwt;
 
-import edu.teleinformatics.core.auth.exception.JwtExpiredException;
-import edu.teleinformatics.core.auth.exception.JwtInvalidException;
-import edu.teleinformatics.core.security.CustomAuthenticationEntryPoint;
+import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.db.user.entity.RoleEnum;
+import edu.teleinformatics.core.security.CustomUserDetails;
 import edu.teleinformatics.core.security.CustomUserDetailsService;
-import io.jsonwebtoken.ExpiredJwtException;
+import edu.teleinformatics.core.security.DisabledUserRegistry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.security.SignatureException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,7 +21,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -29,8 +32,11 @@ import java.util.UUID;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final JwtProperties jwtProperties;
     private final CustomUserDetailsService customUserDetailsService;
-    private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
+    private final DisabledUserRegistry disabledUserRegistry;
+    private final JwtRejectionWriter jwtRejectionWriter;
+    private final RevokedTokenRegistry revokedTokenRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -44,11 +50,36 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String jwt = authHeader.substring(7);
 
+        JwtService.Verification verification = jwtService.verify(jwt);
+        if (verification.rejection() != null) {
+            SecurityContextHolder.clearContext();
+
+            jwtRejectionWriter.reject(request, response, verification.rejection());
+            return;
+        }
+
         try {
-            UUID id = UUID.fromString(jwtService.extractClaim(jwt, "sub", String.class));
+            Claims claims = verification.claims();
+            UUID id = UUID.fromString(claims.getSubject());
+
+            if (revokedTokenRegistry.isRevoked(claims.getId())) {
+                SecurityContextHolder.clearContext();
+
+                log.debug("Revoked JWT for user: {}", id);
+
+                jwtRejectionWriter.reject(request, response, JwtRejectionWriter.Reason.REVOKED);
+                return;
+            }
 
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = customUserDetailsService.loadUserById(id);
+                UserDetails userDetails = loadPrincipal(id, claims);
+
+                if (!userDetails.isEnabled()) {
+                    log.warn("Rejected JWT of disabled user: {}", id);
+
+                    jwtRejectionWriter.reject(request, response, JwtRejectionWriter.Reason.DISABLED);
+                    return;
+                }
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -58,22 +89,38 @@ public class JwtFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
                 log.debug("User authenticated: {}", id);
             }
-        } catch (ExpiredJwtException e) {
+        } catch (MalformedJwtException | IllegalArgumentException e) {
+            // A verified token with claims this application never issues: a subject that isn't a UUID, unknown roles
             SecurityContextHolder.clearContext();
 
-            log.warn("JWT expired for user: {}", e.getClaims().getSubject());
+            log.debug("Invalid JWT claims. Reason: {} - {}", e.getClass(), e.getMessage());
 
-            customAuthenticationEntryPoint.commence(request, response, new JwtExpiredException("Jwt is expired", e));
+            jwtRejectionWriter.reject(request, response, JwtRejectionWriter.Reason.INVALID);
             return;
-        } catch (MalformedJwtException | SignatureException | IllegalArgumentException e) {
-            SecurityContextHolder.clearContext();
+        }
+
+        filterChain.doFilter(request, response);
+    }
 
-            log.warn("Invalid JWT. Reason: {} - {}", e.getClass(), e.getMessage());
+    /**
+     * In stateless mode the principal is rebuilt from the verified claims, which JwtService.generateToken filled from the
+     * same user row, so no query is needed. Until the disabled-user snapshot is loaded the database is used as a fallback.
+     */
+    private UserDetails loadPrincipal(UUID id, Claims claims) {
+        if (!jwtProperties.getStatelessPrincipal().isEnabled() || !disabledUserRegistry.isLoaded()) {
+            return customUserDetailsService.loadUserById(id);
+        }
 
-            customAuthenticationEntryPoint.commence(request, response, new JwtInvalidException("Invalid JWT", e));
-            return;
+        List<?> roleNames = claims.get("roles", List.class);
+        if (roleNames == null) {
+            throw new MalformedJwtException("JWT has no roles claim");
         }
 
-        filterChain.doFilter(request, response);
+        Set<RoleEnum> roles = roleNames.stream()
+                .map(Object::toString)
+                .map(RoleEnum::valueOf) // An unknown role name is rejected as an invalid token
+                .collect(Collectors.toUnmodifiableSet());
+
+        return new CustomUserDetails(id, claims.get("email", String.class), null, roles, !disabledUserRegistry.isDisabled(id));
     }
-}
\ No newline at end of file
+}
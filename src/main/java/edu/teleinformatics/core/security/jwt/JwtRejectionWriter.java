@@ -0,0 +1,85 @@
+package edu.teleinformatics.core.security.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.teleinformatics.core.exception.ErrorHandler;
+import edu.teleinformatics.core.exception.GlobalExceptionHandler;
+import edu.teleinformatics.core.exception.logging.ErrorLogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Writes the 401 for a rejected bearer token straight to the response. Going through CustomAuthenticationEntryPoint
+ * means an AuthenticationException with a stack trace, the HandlerExceptionResolver lookup and a Jackson serialization
+ * for every rejection; here the bodies are serialized once at startup and a rejection allocates nothing of its own.
+ * The body, the api.errors metric and the sampled log line are the same GlobalExceptionHandler produces for AUTH-002.
+ */
+@Component
+@Slf4j
+public class JwtRejectionWriter {
+    private final ErrorLogSampler errorLogSampler;
+    private final Map<Reason, byte[]> bodies = new EnumMap<>(Reason.class);
+    private final Map<Reason, Counter> counters = new EnumMap<>(Reason.class);
+
+    public JwtRejectionWriter(ObjectMapper objectMapper, ErrorLogSampler errorLogSampler, MeterRegistry meterRegistry) throws JsonProcessingException {
+        this.errorLogSampler = errorLogSampler;
+
+        for (Reason reason : Reason.values()) {
+            bodies.put(reason, objectMapper.writeValueAsBytes(new GlobalExceptionHandler.ApiErrorResponse(reason.message, ErrorHandler.AUTH_FAILED.getCode())));
+            counters.put(reason, Counter.builder("api.errors")
+                    .description("Error responses by ErrorHandler code")
+                    .tag("code", ErrorHandler.AUTH_FAILED.getCode())
+                    .tag("exception", reason.exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    public void reject(HttpServletRequest request, HttpServletResponse response, Reason reason) throws IOException {
+        counters.get(reason).increment();
+
+        if (errorLogSampler.shouldLog(ErrorHandler.AUTH_FAILED.getCode())) {
+            log.atWarn()
+                    .addKeyValue("error.code", ErrorHandler.AUTH_FAILED.getCode())
+                    .addKeyValue("error.type", reason.exception)
+                    .addKeyValue("http.response.status_code", HttpServletResponse.SC_UNAUTHORIZED)
+                    .addKeyValue("http.request.method", request.getMethod())
+                    .addKeyValue("url.path", request.getRequestURI())
+                    .addKeyValue("client.address", request.getRemoteAddr())
+                    .log("Request failed. ErrorCode: {}, Message: {}, Exception: {}, Request: {} {}, IP: {}",
+                            ErrorHandler.AUTH_FAILED.getCode(), reason.message, reason.exception, request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        }
+
+        byte[] body = bodies.get(reason);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Why a token was rejected. The exception names are the ones the api.errors metric used before this fast path.
+     */
+    public enum Reason {
+        EXPIRED("Jwt is expired", "JwtExpiredException"),
+        INVALID("Invalid JWT", "JwtInvalidException"),
+        DISABLED("User is disabled", "DisabledException"),
+        REVOKED("Jwt was revoked", "JwtRevokedException");
+
+        private final String message;
+        private final String exception;
+
+        Reason(String message, String exception) {
+            this.message = message;
+            this.exception = exception;
+        }
+    }
+}
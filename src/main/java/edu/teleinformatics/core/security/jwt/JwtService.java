@@ -1,34 +1,82 @@
 package edu.teleinformatics.core.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.db.util.UuidV7;
+import edu.teleinformatics.core.metrics.RequestPhase;
+import edu.teleinformatics.core.metrics.ServerTimings;
+import edu.teleinformatics.core.util.Sha256;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class JwtService {
     private final JwtProperties jwtProperties;
+    private final SecretKey signInKey; // Built once, the secret does not change while the application is running
+    private final JwtParser jwtParser; // Immutable and thread-safe, shared by every request
+    private final Cache<String, Claims> verifiedClaims; // Claims of tokens whose signature was already verified, keyed by token digest
+    private final Cache<String, JwtRejectionWriter.Reason> rejectedTokens; // Why a token was rejected, keyed by token digest
+    private final Timer cachedVerifyTimer;
+    private final Timer fullVerifyTimer;
 
-    private SecretKey getSignInKey() {
-        return Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
+    public JwtService(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.jwtProperties = jwtProperties;
+        this.signInKey = Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getClaimsCache().getMaximumSize())
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> timeUntilExpiration(claims))) // Evicts each entry exactly at the token's exp
+                .recordStats()
+                .build();
+
+        // No expiration: a token that failed verification fails it forever. Clients retry an expired token until they
+        // refresh it, so the size only needs to cover the tokens being retried at once.
+        this.rejectedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getRejectedCache().getMaximumSize())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.claims");
+        CaffeineCacheMetrics.monitor(meterRegistry, rejectedTokens, "jwt.rejected");
+        this.cachedVerifyTimer = verifyTimer(meterRegistry, "hit");
+        this.fullVerifyTimer = verifyTimer(meterRegistry, "miss");
     }
 
     public String generateToken(UUID id, String email, List<String> roles) {
         return Jwts.builder()
+                .id(UuidV7.generate().toString()) // jti, the key RevokedTokenRegistry uses to revoke this token alone
                 .subject(id.toString())
                 .claim("email", email)
                 .claim("roles", roles)
                 .issuedAt(new Date()) // Sets the token issuance time to current time
                 .expiration(new Date(System.currentTimeMillis() + jwtProperties.getExpiration())) // Sets expiration time
-                .signWith(getSignInKey(), Jwts.SIG.HS256) // Signs the token with HMAC SHA-256
+                .signWith(signInKey, Jwts.SIG.HS256) // Signs the token with HMAC SHA-256
                 .compact(); // Builds and returns the compact JWT string
     }
 
@@ -36,15 +84,109 @@ public class JwtService {
         return parseToken(token).get(claimName, clazz);
     }
 
+    public Claims extractClaims(String token) {
+        return parseToken(token);
+    }
+
+    /**
+     * Like extractClaims, without throwing for a rejected token. The reason of a rejection is cached, so a client
+     * retrying the same expired or forged token gets its answer from a hash lookup: no HMAC, no JSON decoding and no
+     * exception with a stack trace, which jjwt would otherwise build on every attempt.
+     */
+    public Verification verify(String token) {
+        long start = System.nanoTime();
+        String digest = digest(token);
+
+        JwtRejectionWriter.Reason rejected = rejectedTokens.getIfPresent(digest);
+        if (rejected != null) {
+            record(cachedVerifyTimer, start);
+            return Verification.rejected(rejected);
+        }
+
+        try {
+            return Verification.verified(parseToken(token, digest, start));
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT expired for user: {}", e.getClaims().getSubject()); // JwtRejectionWriter logs the rejection, sampled
+            rejectedTokens.put(digest, JwtRejectionWriter.Reason.EXPIRED);
+            return Verification.rejected(JwtRejectionWriter.Reason.EXPIRED);
+        } catch (MalformedJwtException | SignatureException | IllegalArgumentException e) {
+            log.debug("Invalid JWT. Reason: {} - {}", e.getClass(), e.getMessage());
+            rejectedTokens.put(digest, JwtRejectionWriter.Reason.INVALID);
+            return Verification.rejected(JwtRejectionWriter.Reason.INVALID);
+        }
+    }
+
     public boolean isTokenValid(String token) {
         return !parseToken(token).getExpiration().before(new Date());
     }
 
+    /**
+     * Hit, miss and eviction counters of the verified-claims cache, used to size it against the real token churn.
+     */
+    public CacheStats getClaimsCacheStats() {
+        return verifiedClaims.stats();
+    }
+
+    /**
+     * Returns the claims of a signed token. A token seen before (and not yet expired) is answered from the cache without
+     * running the HMAC verification or the JSON decoding again; otherwise it is fully parsed and, if valid, cached.
+     */
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parseToken(token, digest(token), System.nanoTime());
+    }
+
+    private Claims parseToken(String token, String digest, long start) {
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            record(cachedVerifyTimer, start);
+            return cached;
+        }
+
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload(); // Throws if the signature is invalid or the token is expired
+            if (claims.getExpiration() != null) {
+                verifiedClaims.put(digest, claims);
+            }
+            return claims;
+        } finally {
+            record(fullVerifyTimer, start); // Rejected tokens are timed too, they cost the same verification
+        }
+    }
+
+    /**
+     * Result of verify(): the claims of a valid token, or the reason it was rejected.
+     */
+    public record Verification(Claims claims, JwtRejectionWriter.Reason rejection) {
+        static Verification verified(Claims claims) {
+            return new Verification(claims, null);
+        }
+
+        static Verification rejected(JwtRejectionWriter.Reason rejection) {
+            return new Verification(null, rejection);
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        ServerTimings.record(RequestPhase.JWT, elapsed);
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("auth.jwt.verify")
+                .description("Time spent verifying JWTs, by verified-claims cache result")
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Duration timeUntilExpiration(Claims claims) {
+        Duration remaining = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static String digest(String token) {
+        byte[] hash = Sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
     }
-}
\ No newline at end of file
+}
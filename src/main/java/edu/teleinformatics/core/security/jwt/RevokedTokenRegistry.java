@@ -0,0 +1,107 @@
+package edu.teleinformatics.core.security.jwt;
+
+import edu.teleinformatics.core.config.JwtProperties;
+import edu.teleinformatics.core.db.token.repository.RevokedTokenRepository;
+import edu.teleinformatics.core.invalidation.InvalidationOutbox;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked access tokens, by jti. JwtFilter checks it on every request with a hash set lookup; each id is
+ * also filed in a timing wheel at its token's expiration and removed on that tick, since an expired token is rejected
+ * anyway. Memory therefore holds only the revoked tokens that could still be used. The ids are persisted in
+ * revoked_tokens and loaded on startup; until then the table is queried instead. Other instances receive revocations
+ * through the invalidation bus.
+ */
+@Component
+@Slf4j
+public class RevokedTokenRegistry {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final InvalidationOutbox invalidationOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<UUID> revoked = ConcurrentHashMap.newKeySet();
+    private final TimingWheel<UUID> expirations; // Guarded by itself
+    private volatile boolean loaded;
+
+    public RevokedTokenRegistry(RevokedTokenRepository revokedTokenRepository, InvalidationOutbox invalidationOutbox,
+                                PlatformTransactionManager transactionManager, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.invalidationOutbox = invalidationOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expirations = new TimingWheel<>(jwtProperties.getRevocation().getTick().toMillis(), System.currentTimeMillis());
+
+        Gauge.builder("auth.jwt.revoked", revoked, Set::size)
+                .description("Revoked access tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        revokedTokenRepository.findLive(Instant.now(), this::add);
+        loaded = true;
+        log.info("Revoked tokens loaded. Count: {}", revoked.size());
+    }
+
+    /**
+     * Whether the token with this jti was revoked. Tokens issued without a jti can't be revoked.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!loaded) {
+            return revokedTokenRepository.exists(UUID.fromString(jti));
+        }
+        return !revoked.isEmpty() && revoked.contains(UUID.fromString(jti)); // No parsing while nothing is revoked
+    }
+
+    /**
+     * Persists the revocation together with its outbox row and applies it to this instance.
+     */
+    public void revoke(UUID jti, Instant expiresAt) {
+        transactionTemplate.executeWithoutResult(status -> {
+            revokedTokenRepository.insert(jti, expiresAt);
+            invalidationOutbox.appendTokenRevoked(jti, expiresAt);
+        });
+        add(jti, expiresAt);
+    }
+
+    /**
+     * Applies an already persisted revocation to this instance only.
+     */
+    public void add(UUID jti, Instant expiresAt) {
+        synchronized (expirations) {
+            if (!revoked.contains(jti) && expirations.schedule(jti, expiresAt.toEpochMilli())) { // Already expired tokens aren't kept
+                revoked.add(jti);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.tick:PT1S}")
+    public void expire() {
+        synchronized (expirations) {
+            expirations.advance(System.currentTimeMillis(), revoked::remove);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.debug("Expired revoked tokens deleted. Count: {}", deleted);
+        }
+    }
+}
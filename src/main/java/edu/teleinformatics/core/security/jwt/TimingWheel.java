@@ -0,0 +1,106 @@
+package edu.teleinformatics.core.security.jwt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each slot of a level spanning a whole turn of the level below.
+ * An item is filed in the lowest level whose range reaches its deadline and moves down one level each time its slot
+ * comes up, so scheduling is O(1) and a tick only touches the items that are due or move down.
+ * With one-second ticks the wheel covers 194 days; later deadlines wait in the top level and are filed again.
+ * <p>
+ * Not thread-safe, callers synchronize.
+ */
+final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS); // Ticks covered by the whole wheel
+
+    private final long tickMillis;
+    private final List<Timeout<T>>[][] slots; // Created on first use and dropped when emptied, so an idle wheel holds no lists
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new List[LEVELS][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Files the item to expire on the first tick at or after {@code deadlineMillis}. Returns false, without filing it,
+     * when that tick has already passed.
+     */
+    boolean schedule(T item, long deadlineMillis) {
+        long tick = Math.ceilDiv(deadlineMillis, tickMillis);
+        if (tick <= currentTick) {
+            return false;
+        }
+        file(new Timeout<>(item, tick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis}, passing every item whose deadline was reached to {@code expired}.
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level); // Higher levels first, so what they hand down is cascaded again in the same tick
+                }
+            }
+
+            int index = (int) (currentTick & (SLOTS - 1));
+            List<Timeout<T>> due = slots[0][index];
+            if (due != null) {
+                slots[0][index] = null;
+                size -= due.size();
+                due.forEach(timeout -> expired.accept(timeout.item));
+            }
+            if (size == 0) {
+                currentTick = target; // Nothing left to expire, skip the empty ticks
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        int index = (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        List<Timeout<T>> timeouts = slots[level][index];
+        if (timeouts != null) {
+            slots[level][index] = null;
+            timeouts.forEach(this::file);
+        }
+    }
+
+    private void file(Timeout<T> timeout) {
+        long delay = timeout.tick - currentTick;
+        long tick = delay < SPAN ? timeout.tick : currentTick + SPAN - 1; // Beyond the wheel: wait in the last reachable slot
+
+        int level = 0;
+        while (level < LEVELS - 1 && (tick - currentTick) >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+
+        List<Timeout<T>> slot = slots[level][index];
+        if (slot == null) {
+            slot = new ArrayList<>(2);
+            slots[level][index] = slot;
+        }
+        slot.add(timeout);
+    }
+
+    private record Timeout<T>(T item, long tick) {
+    }
+}
@@ -0,0 +1,52 @@
+package edu.teleinformatics.core.security.throttle;
+
+import edu.teleinformatics.core.auth.exception.AuthThrottledException;
+import edu.teleinformatics.core.config.AuthProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Brute-force throttle for login and registration, checked before any database access or password hashing, so a
+ * credential-stuffing burst is rejected for the cost of a map lookup instead of a BCrypt verification.
+ * The client address is {@code request.getRemoteAddr()}; behind a proxy, enable server.forward-headers-strategy so the
+ * container resolves it from the forwarded header of trusted proxies only.
+ */
+@Component
+@Slf4j
+public class AuthThrottle {
+    private final boolean enabled;
+    private final TokenBucket perAddress;
+    private final TokenBucket perEmail;
+
+    public AuthThrottle(AuthProperties authProperties, MeterRegistry meterRegistry) {
+        AuthProperties.Throttle throttle = authProperties.getThrottle();
+        this.enabled = throttle.isEnabled();
+        this.perAddress = new TokenBucket("address", throttle.getPerAddress(), throttle.getMaximumKeys(), meterRegistry);
+        this.perEmail = new TokenBucket("email", throttle.getPerEmail(), throttle.getMaximumKeys(), meterRegistry);
+    }
+
+    public void checkLogin(String clientAddress, String email) {
+        if (enabled) {
+            acquire(perAddress, clientAddress);
+            acquire(perEmail, email.toLowerCase(Locale.ROOT)); // The email column uses a case-insensitive collation
+        }
+    }
+
+    public void checkRegister(String clientAddress) {
+        if (enabled) {
+            acquire(perAddress, clientAddress);
+        }
+    }
+
+    private static void acquire(TokenBucket bucket, String key) {
+        Duration retryAfter = bucket.tryAcquire(key);
+        if (!retryAfter.isZero()) {
+            log.debug("Authentication attempt throttled. Key: {}, Retry after: {} ms", bucket.getName(), retryAfter.toMillis());
+            throw new AuthThrottledException("Too many attempts for this " + bucket.getName(), retryAfter);
+        }
+    }
+}
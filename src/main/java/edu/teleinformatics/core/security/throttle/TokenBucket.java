@@ -0,0 +1,80 @@
+package edu.teleinformatics.core.security.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import edu.teleinformatics.core.config.AuthProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by string, implemented as GCRA (generic cell rate algorithm): the whole state of a key is one
+ * AtomicLong with the theoretical arrival time of the next request, updated with a CAS loop, so there are no locks.
+ * Keys live in a size-bounded Caffeine cache and expire once idle for as long as a full refill takes; an expired key
+ * is equivalent to a full bucket, so expiration never lets a throttled key through early. Size eviction can: when more
+ * than {@code maximumKeys} keys are active, a throttled key may be evicted and come back with a full burst. That is the
+ * price of flat memory under a flood of distinct keys, so keep {@code maximumKeys} well above the normal key count.
+ */
+class TokenBucket {
+    private final String name;
+    private final long emissionIntervalNanos; // Time to refill one token
+    private final long burstNanos;            // Time to refill the whole bucket
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> arrivals;
+    private final Counter rejectedCounter;
+
+    TokenBucket(String name, AuthProperties.Throttle.Bucket bucket, long maximumKeys, MeterRegistry meterRegistry) {
+        this(name, bucket, maximumKeys, meterRegistry, Ticker.systemTicker());
+    }
+
+    TokenBucket(String name, AuthProperties.Throttle.Bucket bucket, long maximumKeys, MeterRegistry meterRegistry, Ticker ticker) {
+        this.name = name;
+        this.emissionIntervalNanos = bucket.getRefillEvery().toNanos();
+        this.burstNanos = emissionIntervalNanos * bucket.getBurst();
+        this.ticker = ticker;
+        this.arrivals = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maximumKeys) // Memory stays flat no matter how many distinct keys an attacker uses
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .recordStats()
+                .build();
+        this.rejectedCounter = Counter.builder("auth.throttle.rejected")
+                .description("Authentication attempts rejected by the throttle")
+                .tag("key", name)
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, arrivals, "auth.throttle." + name);
+    }
+
+    /**
+     * Takes a token for the key.
+     *
+     * @return zero if a token was available, otherwise how long until the next one
+     */
+    Duration tryAcquire(String key) {
+        long now = ticker.read();
+        AtomicLong arrival = arrivals.get(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long allowedAt = next - burstNanos;
+
+            if (allowedAt > now) {
+                rejectedCounter.increment();
+                return Duration.ofNanos(allowedAt - now);
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.teleinformatics.core.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digests for token lookups and error fingerprints. Every JVM is required to support SHA-256, so a missing
+ * algorithm is an IllegalStateException here instead of a checked exception at each call site.
+ */
+public final class Sha256 {
+    private Sha256() {
+    }
+
+    /**
+     * A new digest, for input fed in several updates. MessageDigest is not thread-safe, so each caller needs its own.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static byte[] digest(byte[] input) {
+        return newDigest().digest(input);
+    }
+}
@@ -0,0 +1,39 @@
+-- ===========================================
+-- Migration V2: Binary UUID keys
+-- Description: Converts users.id, user_details.id and the foreign keys that reference users.id from VARCHAR(36)
+--              to BINARY(16). New ids are time-ordered UUIDv7 generated by the application (see UuidV7).
+--              Existing ids keep their value, only the storage format changes.
+-- ===========================================
+
+-- 1. Drop the foreign keys that reference users.id while the columns change type
+ALTER TABLE users_roles DROP FOREIGN KEY fk_users_roles_user;
+ALTER TABLE user_details DROP FOREIGN KEY fk_user_details_user;
+
+-- 2. users.id
+ALTER TABLE users ADD COLUMN id_bin BINARY(16) NULL FIRST;
+UPDATE users SET id_bin = UNHEX(REPLACE(id, '-', ''));
+ALTER TABLE users DROP PRIMARY KEY, DROP COLUMN id;
+ALTER TABLE users CHANGE COLUMN id_bin id BINARY(16) NOT NULL FIRST, ADD PRIMARY KEY (id);
+
+-- 3. users_roles.user_id
+ALTER TABLE users_roles ADD COLUMN user_id_bin BINARY(16) NULL FIRST;
+UPDATE users_roles SET user_id_bin = UNHEX(REPLACE(user_id, '-', ''));
+ALTER TABLE users_roles DROP PRIMARY KEY, DROP COLUMN user_id;
+ALTER TABLE users_roles CHANGE COLUMN user_id_bin user_id BINARY(16) NOT NULL FIRST, ADD PRIMARY KEY (user_id, role_id);
+
+-- 4. user_details.id and user_details.user_id
+ALTER TABLE user_details ADD COLUMN id_bin BINARY(16) NULL FIRST, ADD COLUMN user_id_bin BINARY(16) NULL AFTER id_bin;
+UPDATE user_details SET id_bin = UNHEX(REPLACE(id, '-', '')), user_id_bin = UNHEX(REPLACE(user_id, '-', ''));
+ALTER TABLE user_details DROP PRIMARY KEY, DROP COLUMN id, DROP COLUMN user_id;
+ALTER TABLE user_details
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL FIRST,
+    CHANGE COLUMN user_id_bin user_id BINARY(16) NOT NULL AFTER id,
+    ADD PRIMARY KEY (id),
+    ADD UNIQUE KEY uk_user_details_user (user_id);
+
+-- 5. Restore the foreign keys
+ALTER TABLE users_roles ADD CONSTRAINT fk_users_roles_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+ALTER TABLE user_details ADD CONSTRAINT fk_user_details_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+
+-- 6. email is UNIQUE, its unique index already serves every lookup by email
+DROP INDEX idx_users_email ON users;
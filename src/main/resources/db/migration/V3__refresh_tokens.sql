@@ -0,0 +1,23 @@
+-- ===========================================
+-- Migration V3: Refresh tokens
+-- Description: Server-side record of the refresh tokens issued at login/registration. Only the SHA-256 digest of each
+--              token is stored. Tokens issued by rotating one another share a family_id, so reuse of an already
+--              rotated token revokes the whole family.
+-- ===========================================
+
+CREATE TABLE refresh_tokens (
+    id BINARY(16) PRIMARY KEY,
+    token_hash BINARY(32) NOT NULL,
+    family_id BINARY(16) NOT NULL,
+    user_id BINARY(16) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    used_at TIMESTAMP NULL,
+    revoked_at TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Family revocation and the expired-token cleanup
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_expires ON refresh_tokens(expires_at);
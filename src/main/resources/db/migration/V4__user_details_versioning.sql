@@ -0,0 +1,12 @@
+-- ===========================================
+-- Migration V4: Profile versioning
+-- Description: updated_at of user_details becomes the profile version behind the ETag/Last-Modified of the profile
+--              API, so it gets microsecond precision (two edits within the same second get different versions).
+--              The (user_id, updated_at) index answers the version lookup of a conditional GET from the index alone,
+--              without reading the row or its bio.
+-- ===========================================
+
+ALTER TABLE user_details
+    MODIFY COLUMN created_at TIMESTAMP(6) NULL DEFAULT CURRENT_TIMESTAMP(6),
+    MODIFY COLUMN updated_at TIMESTAMP(6) NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    ADD INDEX idx_user_details_user_updated (user_id, updated_at);
@@ -0,0 +1,10 @@
+-- ===========================================
+-- Migration V5: User directory indexes
+-- Description: The admin user directory pages users newest first by (created_at, id) with a keyset cursor, so each
+--              page is an index range scan that starts where the previous one ended instead of skipping OFFSET rows.
+--              The role filter probes users_roles by (role_id, user_id).
+-- ===========================================
+
+CREATE INDEX idx_users_created_id ON users (created_at, id);
+
+CREATE INDEX idx_users_roles_role_user ON users_roles (role_id, user_id);
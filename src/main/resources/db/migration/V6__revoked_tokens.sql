@@ -0,0 +1,14 @@
+-- ===========================================
+-- Migration V6: Revoked access tokens
+-- Description: jti of every access token revoked by a logout, kept until the token would have expired anyway so the
+--              in-memory denylist can be rebuilt on startup. 16 bytes of id and a timestamp per row; expired rows are
+--              deleted periodically.
+-- ===========================================
+
+CREATE TABLE revoked_tokens (
+    jti BINARY(16) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL
+) ENGINE=InnoDB;
+
+-- Startup load and the expired-token cleanup
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens(expires_at);
@@ -0,0 +1,21 @@
+-- ===========================================
+-- Migration V7: Invalidation outbox
+-- Description: Changes that invalidate in-process state on every instance (a user's enabled flag or roles, a revoked
+--              access token) are appended here in the transaction that makes them. Each instance reads the rows after
+--              the last id it applied, so the poll is a primary key range scan. Rows older than the retention are
+--              deleted by created_at.
+-- ===========================================
+
+CREATE TABLE invalidation_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    kind VARCHAR(20) NOT NULL,
+    subject_id BINARY(16) NOT NULL,
+    email VARCHAR(100) NULL,
+    enabled BOOLEAN NULL,
+    expires_at TIMESTAMP NULL,
+    origin BINARY(16) NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Compaction
+CREATE INDEX idx_invalidation_outbox_created ON invalidation_outbox(created_at);
@@ -0,0 +1,219 @@
+package edu.teleinformatics.core.invalidation;
+
+import edu.teleinformatics.core.config.InvalidationBusProperties;
+import edu.teleinformatics.core.db.outbox.projection.OutboxEvent;
+import edu.teleinformatics.core.db.outbox.repository.InvalidationOutboxRepository;
+import edu.teleinformatics.core.db.user.cache.UserRolesCacheEvictor;
+import edu.teleinformatics.core.search.index.UserSearchIndexListener;
+import edu.teleinformatics.core.security.CustomUserDetailsService;
+import edu.teleinformatics.core.security.DisabledUserRegistry;
+import edu.teleinformatics.core.security.jwt.RevokedTokenRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class InvalidationBusTest {
+    private static final Duration GAP_GRACE = Duration.ofSeconds(5);
+    private static final Instant EXPIRES_AT = Instant.parse("2030-01-01T00:00:00Z");
+    private static final UUID OTHER_NODE = UUID.randomUUID();
+
+    private final AtomicLong nanos = new AtomicLong(-1_000_000_000L); // System.nanoTime() can be negative too
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubOutboxRepository repository = new StubOutboxRepository();
+    private final InvalidationBusProperties properties = new InvalidationBusProperties();
+    private final InvalidationOutbox invalidationOutbox = new InvalidationOutbox(repository, properties);
+    private final RevokedTokenRegistry revokedTokenRegistry = mock(RevokedTokenRegistry.class);
+    private final InvalidationBus bus;
+
+    InvalidationBusTest() {
+        properties.setGapGrace(GAP_GRACE);
+        bus = new InvalidationBus(repository, invalidationOutbox, properties, mock(CustomUserDetailsService.class),
+                mock(DisabledUserRegistry.class), mock(UserRolesCacheEvictor.class), mock(UserSearchIndexListener.class),
+                revokedTokenRegistry, meterRegistry, nanos::get);
+    }
+
+    @Test
+    void appliesIdsCommittedOutOfOrderOnceEach() {
+        bus.start();
+        commit(1);
+        commit(3); // 2 took its id first but hasn't committed yet
+        bus.poll();
+        commit(2);
+        bus.poll();
+        bus.poll();
+
+        assertApplied(1, 2, 3);
+        assertEquals(3, applied());
+        assertEquals(0, skippedGaps());
+    }
+
+    @Test
+    void givesUpOnAGapAfterTheGrace() {
+        bus.start();
+        commit(1);
+        commit(3);
+        bus.poll();
+
+        advance(GAP_GRACE.minusNanos(1));
+        bus.poll();
+        assertEquals(0, skippedGaps());
+
+        advance(Duration.ofNanos(1));
+        bus.poll();
+        assertEquals(1, skippedGaps());
+
+        commit(2); // Later than the grace: no longer looked up
+        bus.poll();
+        assertApplied(1, 3);
+        assertNotApplied(2);
+    }
+
+    @Test
+    void skipsItsOwnRows() {
+        bus.start();
+        commit(1, invalidationOutbox.getNodeId());
+        commit(2);
+        bus.poll();
+
+        assertNotApplied(1);
+        assertApplied(2);
+        assertEquals(1, applied());
+        assertEquals(0, skippedGaps());
+    }
+
+    @Test
+    void startsAtTheNewestIdAndWaitsForTheGapsOfTheLastGrace() {
+        commit(1);
+        commit(2);
+        commit(4);
+        commit(5);
+        repository.newestIdOlderThanGrace = 2;
+
+        bus.start();
+        bus.poll();
+        assertEquals(0, applied()); // Rows up to the start position belong to the state loaded after it
+
+        commit(3);
+        bus.poll();
+        assertApplied(3);
+        assertEquals(1, applied());
+    }
+
+    @Test
+    void startLooksBackNoFurtherThanTheMissingIdsLimit() {
+        commit(1);
+        commit(3_000);
+
+        bus.start(); // 2001 to 2999 are missing, older ids are given up on
+
+        commit(1_500);
+        commit(2_500);
+        bus.poll();
+        assertNotApplied(1_500);
+        assertApplied(2_500);
+    }
+
+    @Test
+    void givesUpOnTheLowestIdsOfAGapTooLarge() {
+        bus.start();
+        commit(1);
+        commit(1_500); // 1,498 ids missing, only the highest 1,000 are kept
+        bus.poll();
+        assertEquals(498, skippedGaps());
+
+        commit(400);
+        commit(1_200);
+        bus.poll();
+        assertApplied(1, 1_200, 1_500);
+        assertNotApplied(400);
+
+        advance(GAP_GRACE);
+        bus.poll();
+        assertEquals(498 + 999, skippedGaps());
+    }
+
+    private void commit(long id) {
+        commit(id, OTHER_NODE);
+    }
+
+    private void commit(long id, UUID origin) {
+        repository.rows.put(id, new OutboxEvent(id, InvalidationKind.TOKEN, jti(id), null, null, EXPIRES_AT, origin, 0));
+    }
+
+    private void assertApplied(long... ids) {
+        for (long id : ids) {
+            verify(revokedTokenRegistry, times(1)).add(jti(id), EXPIRES_AT);
+        }
+    }
+
+    private void assertNotApplied(long id) {
+        verify(revokedTokenRegistry, never()).add(jti(id), EXPIRES_AT);
+    }
+
+    private double applied() {
+        return meterRegistry.get("invalidation.bus.applied").tag("kind", "TOKEN").counter().count();
+    }
+
+    private double skippedGaps() {
+        return meterRegistry.get("invalidation.bus.gaps.skipped").counter().count();
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static UUID jti(long id) {
+        return new UUID(0, id);
+    }
+
+    /**
+     * The committed rows of invalidation_outbox, answered like the queries would.
+     */
+    private static final class StubOutboxRepository extends InvalidationOutboxRepository {
+        private final NavigableMap<Long, OutboxEvent> rows = new TreeMap<>();
+        private long newestIdOlderThanGrace;
+
+        private StubOutboxRepository() {
+            super(null);
+        }
+
+        @Override
+        public List<OutboxEvent> findAfter(long id, int limit) {
+            return rows.tailMap(id, false).values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public List<OutboxEvent> findByIds(Collection<Long> ids) {
+            return rows.values().stream().filter(event -> ids.contains(event.id())).toList();
+        }
+
+        @Override
+        public List<Long> findIdsBetween(long after, long upTo) {
+            return List.copyOf(rows.subMap(after, false, upTo, true).keySet());
+        }
+
+        @Override
+        public long findMaxId() {
+            return rows.isEmpty() ? 0 : rows.lastKey();
+        }
+
+        @Override
+        public long findNewestIdOlderThan(long seconds) {
+            return newestIdOlderThanGrace;
+        }
+    }
+}
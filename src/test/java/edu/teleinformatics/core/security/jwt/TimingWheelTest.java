@@ -0,0 +1,111 @@
+package edu.teleinformatics.core.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private static final long TICK = 1_000;
+    private static final long START = 1_700_000_123_456L; // Not aligned to a tick, nor to a turn of any level
+    private static final long SPAN = 1L << 24;            // Ticks covered by the four levels
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void refusesDeadlinesAlreadyPassed() {
+        assertFalse(wheel.schedule("past", START - TICK));
+        assertFalse(wheel.schedule("current tick", START - START % TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiresOnTheFirstTickAtOrAfterTheDeadline() {
+        assertTrue(wheel.schedule("token", START + 1));
+
+        wheel.advance(START + TICK - START % TICK - 1, expired::add);
+        assertEquals(List.of(), expired);
+
+        wheel.advance(START + TICK - START % TICK, expired::add);
+        assertEquals(List.of("token"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesThroughEveryLevel() {
+        // The edges of each level, where an item is filed one level up and has to move down on time
+        long[] delays = {1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 262_145, SPAN - 1};
+        for (long delay : delays) {
+            wheel.schedule(Long.toString(delay), tickMillis(delay));
+        }
+
+        for (long delay : delays) {
+            wheel.advance(tickMillis(delay) - 1, expired::add);
+            assertFalse(expired.contains(Long.toString(delay)), () -> "expired early: " + delay);
+
+            wheel.advance(tickMillis(delay), expired::add);
+            assertEquals(Long.toString(delay), expired.getLast(), () -> "not expired on time: " + delay);
+        }
+        assertEquals(delays.length, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesWhenAdvancedOneTickAtATime() {
+        long[] delays = {3, 64, 100, 4_096, 5_000};
+        for (long delay : delays) {
+            wheel.schedule(Long.toString(delay), tickMillis(delay));
+        }
+
+        List<Long> expiredAt = new ArrayList<>();
+        for (long tick = 1; tick <= 5_000; tick++) {
+            long now = tick;
+            wheel.advance(tickMillis(tick), item -> expiredAt.add(now));
+        }
+        assertEquals(List.of(3L, 64L, 100L, 4_096L, 5_000L), expiredAt);
+    }
+
+    @Test
+    void holdsDeadlinesBeyondTheWheel() {
+        wheel.schedule("just beyond", tickMillis(SPAN + 10));
+        wheel.schedule("three turns", tickMillis(3 * SPAN + 7));
+
+        wheel.advance(tickMillis(SPAN + 9), expired::add);
+        assertEquals(List.of(), expired);
+        wheel.advance(tickMillis(SPAN + 10), expired::add);
+        assertEquals(List.of("just beyond"), expired);
+
+        wheel.advance(tickMillis(3 * SPAN + 6), expired::add);
+        assertEquals(List.of("just beyond"), expired);
+        wheel.advance(tickMillis(3 * SPAN + 7), expired::add);
+        assertEquals(List.of("just beyond", "three turns"), expired);
+    }
+
+    @Test
+    void skipsTheTicksOfAnEmptyWheel() {
+        wheel.schedule("token", tickMillis(10));
+
+        // Walking a million years tick by tick would never finish
+        long later = tickMillis(1_000_000L * 365 * 24 * 3600);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> wheel.advance(later, expired::add));
+        assertEquals(List.of("token"), expired);
+
+        // The wheel is now at the new time, and still files and expires items from there
+        assertFalse(wheel.schedule("before the skip", tickMillis(20)));
+        assertTrue(wheel.schedule("after the skip", later + 5 * TICK));
+        wheel.advance(later + 5 * TICK, expired::add);
+        assertEquals(List.of("token", "after the skip"), expired);
+    }
+
+    // The start of the tick {@code ticks} after the one the wheel started on
+    private static long tickMillis(long ticks) {
+        return (START / TICK + ticks) * TICK;
+    }
+}
@@ -0,0 +1,94 @@
+package edu.teleinformatics.core.security.throttle;
+
+import edu.teleinformatics.core.auth.exception.AuthThrottledException;
+import edu.teleinformatics.core.config.AuthProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+    private static final Duration REFILL = Duration.ofSeconds(3);
+    private static final int BURST = 5;
+
+    private final AtomicLong nanos = new AtomicLong(-1_000_000_000L); // System.nanoTime() can be negative too
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenBucket bucket = new TokenBucket("address", new AuthProperties.Throttle.Bucket(BURST, REFILL), 1_000,
+            meterRegistry, nanos::get);
+
+    @Test
+    void allowsTheBurstAtOnceAndRejectsTheNextAttempt() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.1"));
+        }
+
+        assertEquals(REFILL, bucket.tryAcquire("10.0.0.1")); // The next token is one refill away
+        assertEquals(1, meterRegistry.get("auth.throttle.rejected").tag("key", "address").counter().count());
+    }
+
+    @Test
+    void rejectedAttemptsDontTakeTokens() {
+        drain("10.0.0.1");
+
+        advance(Duration.ofSeconds(1));
+        assertEquals(Duration.ofSeconds(2), bucket.tryAcquire("10.0.0.1"));
+        advance(Duration.ofSeconds(1));
+        assertEquals(Duration.ofSeconds(1), bucket.tryAcquire("10.0.0.1"));
+        advance(Duration.ofSeconds(1));
+        assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        drain("10.0.0.1");
+
+        advance(REFILL.multipliedBy(2));
+        assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.1"));
+        assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.1"));
+        assertEquals(REFILL, bucket.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void refillsNoMoreThanTheBurst() {
+        drain("10.0.0.1");
+
+        advance(REFILL.multipliedBy(BURST * 10L)); // Idle far longer than a full refill
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.1"));
+        }
+        assertEquals(REFILL, bucket.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void keepsABucketPerKey() {
+        drain("10.0.0.1");
+
+        assertEquals(Duration.ZERO, bucket.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        drain("10.0.0.1");
+        advance(Duration.ofMillis(1_999).plusNanos(999_999));
+
+        Duration retryAfter = bucket.tryAcquire("10.0.0.1");
+        assertEquals(Duration.ofSeconds(1).plusNanos(1), retryAfter);
+        assertEquals(2, new AuthThrottledException("throttled", retryAfter).getRetryAfterSeconds());
+
+        assertEquals(1, new AuthThrottledException("throttled", Duration.ofNanos(1)).getRetryAfterSeconds());
+        assertEquals(3, new AuthThrottledException("throttled", REFILL).getRetryAfterSeconds());
+    }
+
+    private void drain(String key) {
+        for (int i = 0; i < BURST; i++) {
+            bucket.tryAcquire(key);
+        }
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}